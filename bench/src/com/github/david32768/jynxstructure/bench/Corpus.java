@@ -0,0 +1,114 @@
+package com.github.david32768.jynxstructure.bench;
+
+import java.io.IOException;
+import java.lang.classfile.Attributes;
+import java.lang.classfile.ClassFile;
+import java.lang.classfile.ClassModel;
+import java.lang.classfile.Label;
+import java.lang.classfile.MethodModel;
+import java.lang.classfile.instruction.SwitchCase;
+import java.lang.constant.ClassDesc;
+import java.lang.constant.ConstantDescs;
+import java.lang.constant.MethodTypeDesc;
+import java.net.URI;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.lang.classfile.ClassFile.ACC_PUBLIC;
+import static java.lang.classfile.ClassFile.ACC_STATIC;
+
+// fixed classes to measure; generated classes are the same on every run
+public enum Corpus {
+
+    JDK_STRING,
+    JDK_CHM,
+    LARGE,
+    SWITCH,
+    ;
+
+    private static final int LARGE_METHODS = 2000;
+    private static final int SWITCH_CASES = 10_000;
+
+    public byte[] bytes() throws IOException {
+        return switch (this) {
+            case JDK_STRING -> jdk("java/lang/String.class");
+            case JDK_CHM -> jdk("java/util/concurrent/ConcurrentHashMap.class");
+            case LARGE -> large();
+            case SWITCH -> switches();
+        };
+    }
+
+    public record Code(byte[] code, int maxlocals) {}
+
+    public static List<Code> codes(byte[] bytes) {
+        ClassModel cm = ClassFile.of().parse(bytes);
+        List<Code> result = new ArrayList<>();
+        for (MethodModel mm : cm.methods()) {
+            mm.findAttribute(Attributes.code())
+                    .map(code -> new Code(code.codeArray(), code.maxLocals()))
+                    .ifPresent(result::add);
+        }
+        return result;
+    }
+
+    private static byte[] jdk(String classname) throws IOException {
+        FileSystem jrt = FileSystems.getFileSystem(URI.create("jrt:/"));
+        return Files.readAllBytes(jrt.getPath("modules", "java.base", classname));
+    }
+
+    // many methods with branches (frames), string constants and calls
+    private static byte[] large() {
+        ClassDesc owner = ClassDesc.of("bench.Large");
+        MethodTypeDesc type = MethodTypeDesc.of(ConstantDescs.CD_int, ConstantDescs.CD_int);
+        MethodTypeDesc length = MethodTypeDesc.of(ConstantDescs.CD_int);
+        return ClassFile.of().build(owner, cb -> {
+            for (int i = 0; i < LARGE_METHODS; ++i) {
+                String constant = "constant é中 " + i;
+                cb.withMethodBody("m" + i, type, ACC_PUBLIC | ACC_STATIC, code -> {
+                    Label other = code.newLabel();
+                    code.iload(0)
+                            .ifle(other)
+                            .ldc(constant)
+                            .invokevirtual(ConstantDescs.CD_String, "length", length)
+                            .iload(0)
+                            .iadd()
+                            .ireturn()
+                            .labelBinding(other)
+                            .iinc(0, 1)
+                            .iload(0)
+                            .ireturn();
+                });
+            }
+        });
+    }
+
+    // huge tableswitch and lookupswitch
+    private static byte[] switches() {
+        ClassDesc owner = ClassDesc.of("bench.Switch");
+        MethodTypeDesc type = MethodTypeDesc.of(ConstantDescs.CD_int, ConstantDescs.CD_int);
+        return ClassFile.of().build(owner, cb -> {
+            cb.withMethodBody("table", type, ACC_PUBLIC | ACC_STATIC, code -> {
+                Label dflt = code.newLabel();
+                List<SwitchCase> cases = new ArrayList<>();
+                for (int i = 0; i < SWITCH_CASES; ++i) {
+                    cases.add(SwitchCase.of(i, dflt));
+                }
+                code.iload(0).tableswitch(0, SWITCH_CASES - 1, dflt, cases)
+                        .labelBinding(dflt).iload(0).ireturn();
+            });
+            cb.withMethodBody("lookup", type, ACC_PUBLIC | ACC_STATIC, code -> {
+                Label dflt = code.newLabel();
+                List<SwitchCase> cases = new ArrayList<>();
+                for (int i = 0; i < SWITCH_CASES; ++i) {
+                    cases.add(SwitchCase.of(i * 7, dflt));
+                }
+                code.iload(0).lookupswitch(dflt, cases)
+                        .labelBinding(dflt).iload(0).ireturn();
+            });
+        });
+    }
+
+}
@@ -0,0 +1,172 @@
+package com.github.david32768.jynxstructure.bench;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.github.david32768.jynxfree.jvm.Context;
+import com.github.david32768.jynxfree.jvm.StandardAttribute;
+
+import com.github.david32768.jynxstructure.AttributeInstance;
+import com.github.david32768.jynxstructure.CPEntry;
+import com.github.david32768.jynxstructure.ClassContext;
+import com.github.david32768.jynxstructure.ClassDiagnostics;
+import com.github.david32768.jynxstructure.CodeBuffer;
+import com.github.david32768.jynxstructure.ConstantPool;
+import com.github.david32768.jynxstructure.IndentPrinter;
+import com.github.david32768.jynxstructure.InstBuffer;
+import com.github.david32768.jynxstructure.PhaseTimer;
+import com.github.david32768.jynxstructure.Structure;
+import com.github.david32768.jynxstructure.StructureOptions;
+import com.github.david32768.jynxstructure.StructureVisitor;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StructureBenchmark {
+
+    private static final int POOL_START = 8; // after magic and version
+    private static final int ATTRIBUTE_HEADER = 6; // name and length
+    private static final int CODE_HEADER = ATTRIBUTE_HEADER + 8; // max stack, max locals and code length
+
+    @Param
+    public Corpus corpus;
+
+    private byte[] bytes;
+    private StructureOptions options;
+    private List<Corpus.Code> codes;
+    private ConstantPool pool;
+    private ByteBuffer utf8;
+    private PrintWriter nullpw;
+    private List<Stackmap> stackmaps;
+
+    // a StackMapTable with the checked instructions of its Code attribute
+    private record Stackmap(InstBuffer insts, int start, int length) {}
+
+    private record Location(int codestart, int codelength, int maxlocals, int start, int length) {}
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        bytes = corpus.bytes();
+        options = new StructureOptions(Set.of(), Set.of(), 1);
+        codes = Corpus.codes(bytes);
+        pool = ConstantPool.getInstance(poolBuffer(), context());
+        pool.check();
+        String text = "structure ".repeat(40) + "é中".repeat(10);
+        utf8 = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)); // no nulls or supplementary chars
+        nullpw = new PrintWriter(PrintWriter.nullWriter());
+        stackmaps = stackmaps();
+    }
+
+    private List<Stackmap> stackmaps() {
+        List<Location> locations = new ArrayList<>();
+        Structure.visitClassStructure(ByteBuffer.wrap(bytes), options, new StructureVisitor() {
+            private ConstantPool cp;
+            private int codestart;
+            private int codelength;
+            private int maxlocals;
+
+            @Override
+            public void visitPool(ConstantPool cp) {
+                this.cp = cp;
+            }
+
+            @Override
+            public void visitAttribute(Context context, int namecp, int start, int length) {
+                StandardAttribute attr = cp.standardAttribute(namecp);
+                if (context == Context.METHOD && attr == StandardAttribute.Code) {
+                    codestart = start + CODE_HEADER;
+                } else if (context == Context.CODE && attr == StandardAttribute.StackMapTable) {
+                    locations.add(new Location(codestart, codelength, maxlocals, start + ATTRIBUTE_HEADER, length));
+                }
+            }
+
+            @Override
+            public void visitCode(int maxstack, int maxlocals, int codelength) {
+                this.maxlocals = maxlocals;
+                this.codelength = codelength;
+            }
+        });
+        List<Stackmap> result = new ArrayList<>();
+        for (Location loc : locations) {
+            InstBuffer insts = new InstBuffer(pool, ByteBuffer.wrap(bytes), loc.codestart(),
+                    loc.codestart() + loc.codelength(), loc.maxlocals());
+            insts.checkInsn(IndentPrinter.nullPrinter());
+            result.add(new Stackmap(insts, loc.start(), loc.length()));
+        }
+        return result;
+    }
+
+    private ByteBuffer poolBuffer() {
+        return ByteBuffer.wrap(bytes).position(POOL_START);
+    }
+
+    private ClassContext context() {
+        int version = ByteBuffer.wrap(bytes).getInt(4);
+        return new ClassContext(version, options,
+                new ClassDiagnostics(false), StructureVisitor.NONE, PhaseTimer.NONE);
+    }
+
+    @Benchmark
+    public ConstantPool constantPool() {
+        ConstantPool cp = ConstantPool.getInstance(poolBuffer(), context());
+        cp.check();
+        return cp;
+    }
+
+    @Benchmark
+    public String utf8() {
+        return CPEntry.fromUTF8CP(utf8.duplicate(), pool.classContext());
+    }
+
+    @Benchmark
+    public void instructions() {
+        for (Corpus.Code code : codes) {
+            byte[] array = code.code();
+            InstBuffer insts = new InstBuffer(pool, ByteBuffer.wrap(array), code.maxlocals(), array.length);
+            insts.checkInsn(IndentPrinter.nullPrinter());
+        }
+    }
+
+    // only the StackMapTable attributes; instructions are checked in setup
+    @Benchmark
+    public void frames(Blackhole bh) {
+        for (Stackmap map : stackmaps) {
+            CodeBuffer codebuff = map.insts().codeBuffer(map.start(), map.start() + map.length());
+            codebuff.push(Context.CODE, StandardAttribute.StackMapTable.toString(), map.length());
+            AttributeInstance attr = AttributeInstance.getInstance(codebuff, StandardAttribute.StackMapTable);
+            attr.checkCPEntries(IndentPrinter.nullPrinter());
+            codebuff.pop();
+            bh.consume(codebuff.position());
+        }
+    }
+
+    @Benchmark
+    public boolean printClassStructure() {
+        return Structure.printClassStructure(corpus.name(), ByteBuffer.wrap(bytes), nullpw, options,
+                new ClassDiagnostics(false));
+    }
+
+}
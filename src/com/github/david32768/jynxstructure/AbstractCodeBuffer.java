@@ -2,7 +2,6 @@ package com.github.david32768.jynxstructure;
 
 import java.nio.ByteBuffer;
 
-import static com.github.david32768.jynxfree.jynx.Global.LOG;
 import static com.github.david32768.jynxstructure.my.Message.M518;
 import static com.github.david32768.jynxstructure.my.Message.M538;
 
@@ -14,13 +13,14 @@ public abstract class AbstractCodeBuffer extends AttributeBuffer {
     protected final int maxlocal;
     protected final CodeLabels labels;
     
-    protected AbstractCodeBuffer(ConstantPool pool, ByteBuffer bb, int maxlocal, int codesz) {
-        this(pool, bb, StandardAttribute.Code.toString(), maxlocal, new CodeLabels(codesz));
+    protected AbstractCodeBuffer(ConstantPool pool, ByteBuffer bb, int position, int limit, int maxlocal) {
+        this(pool, bb, position, limit, StandardAttribute.Code.toString(), maxlocal,
+                new CodeLabels(limit - position, pool.classContext()));
     }
     
-    protected AbstractCodeBuffer(ConstantPool pool, ByteBuffer bb, String name,
+    protected AbstractCodeBuffer(ConstantPool pool, ByteBuffer bb, int position, int limit, String name,
             int maxlocal, CodeLabels labels) {
-        super(pool, bb, Context.CODE, name);
+        super(pool, bb, position, limit, Context.CODE, name);
         this.maxlocal = maxlocal;
         this.labels = labels;
     }
@@ -28,10 +28,14 @@ public abstract class AbstractCodeBuffer extends AttributeBuffer {
     public void checkLocalVar(int var) {
         if (var >= maxlocal) {
             // "local variable %d is >= max locals %d"
-            LOG(M518, var, maxlocal);
+            classContext().log(M518, var, maxlocal);
         }
     }
 
+    public int instructions() {
+        return labels.instructions();
+    }
+
     public int checkLabel(int instoff, int broff) {
         return labels.labelOffset(instoff, broff);
     }
@@ -40,7 +44,7 @@ public abstract class AbstractCodeBuffer extends AttributeBuffer {
         checkLabel(0, offset);
         if (!labels.isNewInst(offset)) {
             // "offset %d is not instruction NEW"
-            LOG(M538, offset);
+            classContext().log(M538, offset);
         }
         return offset;
     }
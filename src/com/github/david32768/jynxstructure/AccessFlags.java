@@ -0,0 +1,51 @@
+package com.github.david32768.jynxstructure;
+
+import java.lang.reflect.AccessFlag;
+import java.lang.reflect.AccessFlag.Location;
+import java.lang.reflect.ClassFileFormatVersion;
+
+import com.github.david32768.jynxfree.jvm.Context;
+
+// access flags defined by the JVMS for each location and class file version
+final class AccessFlags {
+
+    private static final int FIRST_MAJOR = ClassFileFormatVersion.RELEASE_0.major();
+    private static final int LAST_MAJOR = ClassFileFormatVersion.latest().major();
+    private static final int PREVIEW_MINOR = 0xffff;
+
+    private static final int[][] DEFINED = defined(); // [location][major - FIRST_MAJOR]
+
+    private AccessFlags() {}
+
+    private static int[][] defined() {
+        int[][] defined = new int[Location.values().length][LAST_MAJOR - FIRST_MAJOR + 1];
+        for (ClassFileFormatVersion cffv : ClassFileFormatVersion.values()) {
+            for (AccessFlag flag : AccessFlag.values()) {
+                for (Location location : flag.locations(cffv)) {
+                    defined[location.ordinal()][cffv.major() - FIRST_MAJOR] |= flag.mask();
+                }
+            }
+        }
+        return defined;
+    }
+
+    // zero if all are defined or not known, e.g. for a preview version; a later version is taken as the latest
+    static int undefined(int access, Context context, int version) {
+        int major = version & 0xffff;
+        int minor = version >>> 16;
+        Location location = switch (context) {
+            case CLASS, MODULE -> Location.CLASS;
+            case FIELD -> Location.FIELD;
+            case METHOD -> Location.METHOD;
+            case INNER_CLASS -> Location.INNER_CLASS;
+            case PARAMETER -> Location.METHOD_PARAMETER;
+            default -> null;
+        };
+        if (location == null || minor == PREVIEW_MINOR || major < FIRST_MAJOR) {
+            return 0;
+        }
+        int index = Math.min(major, LAST_MAJOR) - FIRST_MAJOR;
+        return access & ~DEFINED[location.ordinal()][index];
+    }
+
+}
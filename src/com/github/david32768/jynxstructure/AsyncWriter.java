@@ -0,0 +1,182 @@
+package com.github.david32768.jynxstructure;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// chars are written and flushed to out on a background thread so formatting and I/O overlap;
+// only close waits for them to be written
+public class AsyncWriter extends Writer {
+
+    private static final int CHUNK_SIZE = 1 << 16;
+    private static final int CHUNK_COUNT = 4;
+    private static final long WAIT_MILLIS = 100; // between checks that the drain thread is alive
+
+    private final Writer out;
+    private final BlockingQueue<Chunk> full;
+    private final BlockingQueue<char[]> free;
+    private final Thread thread;
+
+    private char[] chars;
+    private int count;
+    private boolean closed;
+    private volatile IOException failure;
+
+    private record Chunk(char[] chars, int length, boolean flush) {}
+
+    public AsyncWriter(Writer out) {
+        this.out = out;
+        this.full = new ArrayBlockingQueue<>(CHUNK_COUNT + 1);
+        this.free = new ArrayBlockingQueue<>(CHUNK_COUNT);
+        for (int i = 1; i < CHUNK_COUNT; ++i) {
+            free.add(new char[CHUNK_SIZE]);
+        }
+        this.chars = new char[CHUNK_SIZE];
+        this.thread = Thread.ofPlatform()
+                .name("structure-output")
+                .daemon()
+                .start(this::drain);
+    }
+
+    private void drain() {
+        try {
+            while (true) {
+                Chunk chunk = full.take();
+                if (chunk.chars == null) {
+                    return;
+                }
+                try {
+                    if (failure == null) {
+                        out.write(chunk.chars, 0, chunk.length);
+                        if (chunk.flush) {
+                            out.flush();
+                        }
+                    }
+                } catch (IOException ex) {
+                    failure = ex;
+                }
+                free.put(chunk.chars);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException | Error ex) {
+            failure = new IOException("output thread failed", ex);
+            throw ex;
+        }
+    }
+
+    private void checkState() throws IOException {
+        if (closed) {
+            throw new IOException("writer is closed");
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    // a writer does not wait for ever if the drain thread has ended
+    private void checkDrain() throws IOException {
+        if (!thread.isAlive()) {
+            checkState();
+            throw new IOException("output thread has ended");
+        }
+    }
+
+    private <T> void put(BlockingQueue<T> queue, T item) throws IOException, InterruptedException {
+        while (!queue.offer(item, WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+            checkDrain();
+        }
+    }
+
+    private <T> T take(BlockingQueue<T> queue) throws IOException, InterruptedException {
+        T item;
+        while ((item = queue.poll(WAIT_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+            checkDrain();
+        }
+        return item;
+    }
+
+    private void handOff(boolean flush) throws IOException {
+        checkState(); // e.g. a failure of a previous chunk
+        try {
+            put(full, new Chunk(chars, count, flush));
+            chars = take(free);
+            count = 0;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        synchronized (lock) {
+            checkState();
+            while (len > 0) {
+                int ct = Math.min(len, chars.length - count);
+                System.arraycopy(cbuf, off, chars, count, ct);
+                count += ct;
+                off += ct;
+                len -= ct;
+                if (count == chars.length) {
+                    handOff(false);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        synchronized (lock) {
+            checkState();
+            while (len > 0) {
+                int ct = Math.min(len, chars.length - count);
+                str.getChars(off, off + ct, chars, count);
+                count += ct;
+                off += ct;
+                len -= ct;
+                if (count == chars.length) {
+                    handOff(false);
+                }
+            }
+        }
+    }
+
+    // out is flushed by the drain thread after the chars are written; a failure is thrown by a later call
+    @Override
+    public void flush() throws IOException {
+        synchronized (lock) {
+            handOff(true);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            try {
+                flush();
+            } finally {
+                closed = true;
+                try {
+                    put(full, new Chunk(null, 0, false));
+                    thread.join(); // all chunks written
+                } catch (IOException ex) {
+                    // drain thread has ended; its failure is thrown below
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                out.close();
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+}
@@ -6,11 +6,18 @@ import com.github.david32768.jynxfree.jvm.Context;
 
 public class AttributeBuffer extends Buffer {
 
-    private final Context context;
-    private final String name;
+    private static final int EXCEPTION_ENTRY_SIZE = 8;
 
-    public AttributeBuffer(ConstantPool pool, ByteBuffer bb, Context context, String name) {
-        super(pool, bb);
+    private Context context;
+    private String name;
+
+    // the class, whose attributes are pushed
+    public AttributeBuffer(ConstantPool pool, ByteBuffer bb) {
+        this(pool, bb, bb.position(), bb.limit(), Context.CLASS, "");
+    }
+
+    public AttributeBuffer(ConstantPool pool, ByteBuffer bb, int position, int limit, Context context, String name) {
+        super(pool, bb, position, limit);
         this.context = context;
         this.name = name;
     }
@@ -30,18 +37,56 @@ public class AttributeBuffer extends Buffer {
             default -> 1;
         };
     }
+
+    // the next size bytes are the attribute until pop
+    public void push(Context context, String name, int size) {
+        int outer = narrow(size);
+        classContext().bounds().push(outer, this.context, this.name);
+        this.context = context;
+        this.name = name;
+    }
+
+    // position is the end of the attribute
+    public void pop() {
+        BoundsStack bounds = classContext().bounds();
+        widen(bounds.limit());
+        context = bounds.context();
+        name = bounds.name();
+        bounds.pop();
+    }
     
     public CodeBuffer codeBuffer(IndentPrinter ptr) {
         assert context == Context.METHOD;
-        nextShort(); // max stack
+        int maxstack = nextUnsignedShort();
         int maxlocals = nextShort(); //max locals
         int codesz = nextSize(); // code length
-        ptr.println("; code size = %#x", codesz);
-        InstBuffer instbuff = new InstBuffer(pool, extract(codesz), maxlocals, codesz);
-        instbuff.checkInsn(ptr.shift());
-        CodeBuffer result = instbuff.codeBuffer(bb.duplicate());
-        bb.position(bb.limit());
+        classContext().visitor().visitCode(maxstack, maxlocals, codesz);
+        if (ptr.prints()) {
+            ptr.println("; code size = %#x", codesz);
+        }
+        CodeBuffer result = new CodeBuffer(pool, bb, position(), limit(), maxlocals, codesz);
+        advanceToLimit();
+        result.checkInsn(ptr.shift(), codesz);
         return result;
     }
+
+    public void skipCode(IndentPrinter ptr) {
+        assert context == Context.METHOD;
+        int maxstack = nextUnsignedShort();
+        int maxlocals = nextShort(); //max locals
+        int codesz = nextSize(); // code length
+        classContext().visitor().visitCode(maxstack, maxlocals, codesz);
+        if (ptr.prints()) {
+            ptr.println("; code size = %#x", codesz);
+        }
+        skip(codesz);
+        int ct = nextUnsignedShort(); // exception table
+        skip(ct * EXCEPTION_ENTRY_SIZE);
+        int attrs_ct = nextUnsignedShort();
+        for (int i = 0; i < attrs_ct; ++i) {
+            nextUnsignedShort(); // attribute name
+            skip(nextSize());
+        }
+    }
     
 }
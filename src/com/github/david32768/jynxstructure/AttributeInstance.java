@@ -1,10 +1,10 @@
 package com.github.david32768.jynxstructure;
 
 import static com.github.david32768.jynxfree.jvm.Context.ATTRIBUTE;
-import static com.github.david32768.jynxfree.jynx.Global.LOG;
 import static com.github.david32768.jynxstructure.my.Message.M508;
 
 import com.github.david32768.jynxfree.jvm.Attribute;
+import com.github.david32768.jynxfree.jvm.Context;
 import com.github.david32768.jynxfree.jvm.JvmVersion;
 import com.github.david32768.jynxfree.jvm.StandardAttribute;
 
@@ -12,6 +12,7 @@ public abstract class AttributeInstance {
     
     protected final String name;
     protected final AttributeBuffer buffer;
+    protected final Context context; // buffer is popped before a lazy attrDesc
     protected final int size;
     protected final Attribute attr;
 
@@ -19,6 +20,7 @@ public abstract class AttributeInstance {
         this.attr = attr;
         this.name = buffer.name();
         this.buffer = buffer;
+        this.context = buffer.context();
         this.size = buffer.limit() - buffer.position();
     }
 
@@ -50,7 +52,7 @@ public abstract class AttributeInstance {
     public void checkAtLimit() {
         if (buffer.hasRemaining()) {
             //"actual end(%#x) of %s does not match expected %#x"
-            LOG(M508, buffer.position(), name, buffer.limit());
+            buffer.classContext().log(M508, buffer.position(), name, buffer.limit());
             buffer.advanceToLimit();
         }
     }
@@ -62,7 +64,7 @@ public abstract class AttributeInstance {
             attrerror = "";
             if (!jvmversion.supports(uattr)) {
                 attrerror = String.format("(not supported in %s)",jvmversion);
-            } else if (!uattr.inContext(buffer.context())) {
+            } else if (!uattr.inContext(context)) {
                 attrerror = "(out of context)";
             }
         }
@@ -75,8 +77,11 @@ public abstract class AttributeInstance {
     }
 
     public static AttributeInstance getInstance(AttributeBuffer attrbuff) {
-        
-        StandardAttribute uattr = StandardAttribute.getInstance(attrbuff.name());
+        return getInstance(attrbuff, StandardAttribute.getInstance(attrbuff.name()));
+    }
+
+    // uattr is null if not a standard attribute
+    public static AttributeInstance getInstance(AttributeBuffer attrbuff, StandardAttribute uattr) {
         try {
             var type = uattr == null? null: uattr.type();
             return switch(type)  {
@@ -85,7 +90,7 @@ public abstract class AttributeInstance {
                 default -> new SimpleAttribute(uattr, attrbuff);
             };
         } catch (Exception ex) {
-            LOG(ex);
+            attrbuff.classContext().log(ex);
             return null;
         }
     }
@@ -0,0 +1,91 @@
+package com.github.david32768.jynxstructure;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.github.david32768.jynxstructure.PhaseTimer.Phase;
+
+public class BatchMetrics {
+
+    private static final int TOP = 10;
+
+    private final LongAdder[] wall;
+    private final LongAdder[] cpu;
+    private final LongAdder[] alloc;
+    private final Queue<ClassMetrics> classes;
+
+    private record ClassMetrics(String name, long wall, long cpu, long alloc, Phase slowest) {}
+
+    public BatchMetrics() {
+        int phases = Phase.values().length;
+        this.wall = adders(phases);
+        this.cpu = adders(phases);
+        this.alloc = adders(phases);
+        this.classes = new ConcurrentLinkedQueue<>();
+    }
+
+    private static LongAdder[] adders(int ct) {
+        LongAdder[] result = new LongAdder[ct];
+        for (int i = 0; i < ct; ++i) {
+            result[i] = new LongAdder();
+        }
+        return result;
+    }
+
+    public void add(String name, PhaseTimer timer) {
+        for (Phase phase : Phase.values()) {
+            int index = phase.ordinal();
+            wall[index].add(timer.wall(phase));
+            cpu[index].add(timer.cpu(phase));
+            alloc[index].add(timer.alloc(phase));
+        }
+        classes.add(new ClassMetrics(name, timer.wall(), timer.cpu(), timer.alloc(), timer.slowest()));
+    }
+
+    public static void print(PrintWriter pw, PhaseTimer timer) {
+        pw.format("METRICS wall = %dus cpu = %dus alloc = %d bytes slowest phase = %s%n",
+                micros(timer.wall()), micros(timer.cpu()), timer.alloc(), timer.slowest());
+    }
+
+    public void print(PrintWriter pw) {
+        for (Phase phase : Phase.values()) {
+            int index = phase.ordinal();
+            pw.format("METRICS phase %s wall = %dms cpu = %dms alloc = %d bytes%n",
+                    phase, millis(wall[index].sum()), millis(cpu[index].sum()), alloc[index].sum());
+        }
+        List<ClassMetrics> sorted = new ArrayList<>(classes);
+        if (sorted.isEmpty()) {
+            return;
+        }
+        sorted.sort(Comparator.comparingLong(ClassMetrics::wall));
+        pw.format("METRICS classes = %d wall p50 = %dus p99 = %dus max = %dus%n",
+                sorted.size(), micros(percentile(sorted, 50)), micros(percentile(sorted, 99)),
+                micros(sorted.getLast().wall()));
+        int last = Math.max(0, sorted.size() - TOP);
+        for (int i = sorted.size() - 1; i >= last; --i) {
+            ClassMetrics cm = sorted.get(i);
+            pw.format("METRICS slow %s wall = %dus cpu = %dus alloc = %d bytes slowest phase = %s%n",
+                    cm.name(), micros(cm.wall()), micros(cm.cpu()), cm.alloc(), cm.slowest());
+        }
+    }
+
+    private static long percentile(List<ClassMetrics> sorted, int percent) {
+        int index = (int)Math.ceil(percent / 100.0 * sorted.size()) - 1;
+        return sorted.get(Math.max(0, index)).wall();
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+}
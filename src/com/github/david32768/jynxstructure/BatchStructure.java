@@ -0,0 +1,336 @@
+package com.github.david32768.jynxstructure;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static com.github.david32768.jynxfree.jynx.Global.LOG;
+import static com.github.david32768.jynxstructure.my.Message.M540;
+
+import com.github.david32768.jynxfree.jynx.GlobalOption;
+
+public class BatchStructure {
+
+    private static final int READ_AHEAD = 4; // classes read but not checked per checking thread
+
+    private final PrintWriter pw;
+    private final StructureOptions options;
+    private final boolean json;
+    private final BatchSummary summary;
+    private final Map<String, BatchSummary> groups;
+    private final ResultCache cache; // null if none
+    private final BatchMetrics metrics; // null if none
+
+    private BatchStructure(PrintWriter pw, StructureOptions options, ResultCache cache) {
+        this.pw = pw;
+        this.options = options;
+        this.cache = cache;
+        this.metrics = options.has(StructureOption.METRICS)? new BatchMetrics(): null;
+        this.json = options.has(StructureOption.NDJSON) || options.has(StructureOption.NDJSON_MEMBERS);
+        this.summary = new BatchSummary();
+        this.groups = new ConcurrentHashMap<>();
+    }
+
+    public static boolean isBatch(String fname) {
+        return args(fname).size() > 1 || ClassInputs.isBatch(fname);
+    }
+
+    public static List<String> args(String fname) {
+        return Arrays.asList(fname.split(File.pathSeparator));
+    }
+    
+    public static boolean check(PrintWriter pw, List<String> args) {
+        return check(pw, args, StructureOptions.global());
+    }
+
+    public static boolean check(PrintWriter pw, List<String> args, StructureOptions options) {
+        return check(pw, args, options, null);
+    }
+
+    public static boolean check(PrintWriter pw, List<String> args, StructureOptions options, ResultCache cache) {
+        long start = System.nanoTime();
+        BatchStructure batch = new BatchStructure(pw, options, cache);
+        try (ClassInputs inputs = ClassInputs.of(args)) {
+            batch.checkAll(inputs, options.threads());
+        } catch (IOException | RuntimeException ex) { // e.g. an invalid path
+            LOG(ex);
+            return false;
+        }
+        if (!batch.json) { // every line is a json object
+            batch.printSummary(System.nanoTime() - start);
+        }
+        if (cache != null) {
+            try {
+                cache.evict();
+            } catch (IOException ex) { // as a failed put, the results of the batch stand
+                LOG(M540, ex);
+            }
+        }
+        return batch.summary.failed() == 0;
+    }
+
+    // blocking reads and inflation are on virtual threads; checks are on the platform threads
+    // output is in argument order whatever the number of threads
+    private void checkAll(ClassInputs sources, int threads) {
+        List<ClassInput> inputs = sources.inputs();
+        List<ClassStream> streams = sources.streams();
+        Queue<Future<?>> futures = new ConcurrentLinkedQueue<>();
+        Semaphore reads = new Semaphore(READ_AHEAD * threads);
+        OrderedOutput output = new OrderedOutput(pw, sources.slots());
+        try (ExecutorService workers = Executors.newFixedThreadPool(threads)) {
+            try (ExecutorService readers = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < streams.size(); ++i) { // one task per stream as read in order
+                    ClassStream stream = streams.get(i);
+                    int slot = sources.streamSlot(i);
+                    futures.add(workers.submit(() -> check(stream, text -> output.print(slot, text))));
+                }
+                for (int index : largestFirst(inputs)) {
+                    ClassInput input = inputs.get(index);
+                    int slot = sources.inputSlot(index);
+                    Consumer<String> out = text -> output.print(slot, text);
+                    if (input.readBlocks()) {
+                        reads.acquireUninterruptibly();
+                        futures.add(readers.submit(
+                                () -> guarded(input.name(), out, () -> read(input, workers, reads, futures, out))));
+                    } else {
+                        futures.add(workers.submit(() -> guarded(input.name(), out, () -> check(input, out))));
+                    }
+                }
+            }
+        }
+        output.finish();
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException ex) { // an exception is reported as a failed input by guarded
+                if (ex.getCause() instanceof Error error) {
+                    throw error;
+                }
+                throw new AssertionError(ex.getCause());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    // so that a large class is not the last to be checked; sizes not known are last in input order
+    private static int[] largestFirst(List<ClassInput> inputs) {
+        long[] sizes = inputs.stream()
+                .mapToLong(ClassInput::size)
+                .toArray();
+        return IntStream.range(0, sizes.length)
+                .boxed()
+                .sorted(Comparator.comparingLong((Integer i) -> sizes[i]).reversed())
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    // an exception outside the check of a class, e.g. from the cache, fails that input and not the batch
+    private void guarded(String name, Consumer<String> out, Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException ex) {
+            check(new Failed(name, ex), out);
+        }
+    }
+
+    // output of the classes of a stream is printed together
+    private void check(ClassStream stream, Consumer<String> out) {
+        StringBuilder sb = new StringBuilder();
+        try {
+            stream.forEach(input -> guarded(input.name(), sb::append, () -> check(input, sb::append)));
+        } catch (IOException | RuntimeException ex) {
+            check(new Failed(stream.name(), ex), sb::append);
+        } finally {
+            out.accept(sb.toString());
+        }
+    }
+
+    private record Failed(String name, Exception ex) implements ClassInput {
+
+        @Override
+        public long size() {
+            return -1;
+        }
+
+        @Override
+        public ByteBuffer read() throws IOException {
+            if (ex instanceof IOException ioex) {
+                throw ioex;
+            }
+            throw (RuntimeException)ex;
+        }
+
+    }
+
+    // the permit is released when checked
+    private void read(ClassInput input, ExecutorService workers, Semaphore reads, Queue<Future<?>> futures,
+            Consumer<String> out) {
+        boolean submitted = false;
+        try {
+            String key = crcKey(input);
+            if (reportCached(input, input.size(), key, out)) { // not read
+                return;
+            }
+            Contents contents = Contents.read(input);
+            futures.add(workers.submit(() -> {
+                try {
+                    guarded(input.name(), out, () -> check(input, key, contents::get, out));
+                } finally {
+                    reads.release();
+                }
+            }));
+            submitted = true;
+        } finally {
+            if (!submitted) {
+                reads.release();
+            }
+        }
+    }
+
+    private interface Reader {
+
+        ByteBuffer read() throws IOException;
+
+    }
+
+    // bytes read ahead of the check or the read failure
+    private record Contents(ByteBuffer bytes, Exception ex) {
+
+        private static Contents read(ClassInput input) {
+            try {
+                return new Contents(input.read(), null);
+            } catch (IOException | RuntimeException ex) {
+                return new Contents(null, ex);
+            }
+        }
+
+        private ByteBuffer get() throws IOException {
+            if (ex instanceof IOException ioex) {
+                throw ioex;
+            }
+            if (ex instanceof RuntimeException rtex) {
+                throw rtex;
+            }
+            return bytes;
+        }
+
+    }
+
+    // null if not cached or crc not known
+    private String crcKey(ClassInput input) {
+        return cache != null && input.crc() >= 0 && input.size() >= 0?
+                cache.key(input.name(), input.crc(), input.size()):
+                null;
+    }
+
+    private boolean reportCached(ClassInput input, long size, String key, Consumer<String> out) {
+        if (key == null) {
+            return false;
+        }
+        Optional<ResultCache.Result> cached = cache.get(key);
+        if (cached.isPresent()) {
+            report(input, size, cached.get(), out);
+        }
+        return cached.isPresent();
+    }
+
+    private void check(ClassInput input, Consumer<String> out) {
+        String key = crcKey(input);
+        if (!reportCached(input, input.size(), key, out)) { // not read
+            check(input, key, input::read, out);
+        }
+    }
+
+    private void check(ClassInput input, String key, Reader reader, Consumer<String> out) {
+        StringWriter sw = new StringWriter();
+        PrintWriter classpw = new PrintWriter(sw);
+        ClassDiagnostics diagnostics = new ClassDiagnostics(options.has(GlobalOption.DEBUG));
+        NdjsonVisitor visitor = json?
+                new NdjsonVisitor(classpw, input.name(), options.has(StructureOption.NDJSON_MEMBERS)):
+                null;
+        Diagnostics logger = json? new VisitorDiagnostics(visitor, diagnostics): diagnostics;
+        PhaseTimer timer = metrics == null? PhaseTimer.NONE: PhaseTimer.start();
+        boolean ok;
+        long size = -1;
+        try {
+            ByteBuffer bb = reader.read();
+            size = bb.remaining();
+            if (cache != null && key == null) {
+                key = cache.key(input.name(), bb);
+                if (reportCached(input, size, key, out)) {
+                    return;
+                }
+            }
+            ok = json?
+                    Structure.visitClassStructure(bb, options, visitor, logger, timer):
+                    Structure.printClassStructure(input.name(), bb, classpw, options, logger, timer);
+        } catch (IOException | RuntimeException ex) {
+            logger.log(ex);
+            ok = false;
+            key = null; // not cached if not read
+        }
+        if (json) {
+            visitor.finish(ok);
+        } else {
+            diagnostics.print(classpw);
+        }
+        classpw.flush();
+        ResultCache.Result result = new ResultCache.Result(ok, diagnostics.errors(), diagnostics.warnings(),
+                sw.toString());
+        if (key != null) {
+            cache.put(key, result);
+        }
+        if (metrics != null) { // not cached
+            timer.finish();
+            metrics.add(input.name(), timer);
+            if (!json) {
+                BatchMetrics.print(classpw, timer);
+                classpw.flush();
+                result = new ResultCache.Result(ok, diagnostics.errors(), diagnostics.warnings(), sw.toString());
+            }
+        }
+        report(input, size, result, out);
+    }
+
+    private void report(ClassInput input, long size, ResultCache.Result result, Consumer<String> out) {
+        summary.add(size, result.ok(), result.errors(), result.warnings());
+        String group = input.group();
+        if (!group.isEmpty()) {
+            groups.computeIfAbsent(group, k -> new BatchSummary())
+                    .add(size, result.ok(), result.errors(), result.warnings());
+        }
+        out.accept(result.text());
+    }
+
+    private void printSummary(long nanos) {
+        synchronized (pw) {
+            new TreeMap<>(groups).forEach((group, groupsummary) -> groupsummary.print(pw, group));
+            summary.print(pw, nanos);
+            if (metrics != null) {
+                metrics.print(pw);
+            }
+            pw.flush();
+        }
+    }
+
+}
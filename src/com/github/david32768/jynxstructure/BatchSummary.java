@@ -0,0 +1,54 @@
+package com.github.david32768.jynxstructure;
+
+import java.io.PrintWriter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public class BatchSummary {
+
+    private final LongAdder classes;
+    private final LongAdder failed;
+    private final LongAdder errors;
+    private final LongAdder warnings;
+    private final LongAdder bytes;
+
+    public BatchSummary() {
+        this.classes = new LongAdder();
+        this.failed = new LongAdder();
+        this.errors = new LongAdder();
+        this.warnings = new LongAdder();
+        this.bytes = new LongAdder();
+    }
+
+    public void add(long size, boolean ok, int errorct, int warningct) {
+        if (size >= 0) {
+            classes.increment();
+            bytes.add(size);
+        }
+        if (!ok) {
+            failed.increment();
+        }
+        errors.add(errorct);
+        warnings.add(warningct);
+    }
+
+    public long failed() {
+        return failed.sum();
+    }
+
+    public void print(PrintWriter pw, String label) {
+        pw.format("BATCH %s classes = %d failed = %d errors = %d warnings = %d bytes = %d%n",
+                label, classes.sum(), failed.sum(), errors.sum(), warnings.sum(), bytes.sum());
+    }
+
+    public void print(PrintWriter pw, long nanos) {
+        long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        long bytect = bytes.sum();
+        double rate = nanos == 0? 0.0: bytect * 1.0e9 / nanos;
+        pw.format("BATCH classes = %d failed = %d errors = %d warnings = %d%n",
+                classes.sum(), failed.sum(), errors.sum(), warnings.sum());
+        pw.format("BATCH bytes = %d time = %dms rate = %.0f bytes/sec%n",
+                bytect, millis, rate);
+    }
+
+}
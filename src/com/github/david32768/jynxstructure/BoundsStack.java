@@ -0,0 +1,53 @@
+package com.github.david32768.jynxstructure;
+
+import java.util.Arrays;
+
+import com.github.david32768.jynxfree.jvm.Context;
+
+// enclosing bounds of the attributes being checked; one per class so entering an attribute allocates nothing
+final class BoundsStack {
+
+    private static final int INITIAL_DEPTH = 4; // e.g. Record, component attribute
+
+    private int[] limits;
+    private Context[] contexts;
+    private String[] names;
+    private int depth;
+
+    BoundsStack() {
+        this.limits = new int[INITIAL_DEPTH];
+        this.contexts = new Context[INITIAL_DEPTH];
+        this.names = new String[INITIAL_DEPTH];
+    }
+
+    void push(int limit, Context context, String name) {
+        if (depth == limits.length) {
+            limits = Arrays.copyOf(limits, 2 * depth);
+            contexts = Arrays.copyOf(contexts, 2 * depth);
+            names = Arrays.copyOf(names, 2 * depth);
+        }
+        limits[depth] = limit;
+        contexts[depth] = context;
+        names[depth] = name;
+        ++depth;
+    }
+
+    int limit() {
+        return limits[depth - 1];
+    }
+
+    Context context() {
+        return contexts[depth - 1];
+    }
+
+    String name() {
+        return names[depth - 1];
+    }
+
+    void pop() {
+        --depth;
+        contexts[depth] = null;
+        names[depth] = null;
+    }
+
+}
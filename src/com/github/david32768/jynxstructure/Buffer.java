@@ -1,61 +1,93 @@
 package com.github.david32768.jynxstructure;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Optional;
 
-import static com.github.david32768.jynxfree.jynx.Global.LOG;
 import static com.github.david32768.jynxstructure.my.Message.M509;
+import static com.github.david32768.jynxstructure.my.Message.M519;
 
 import com.github.david32768.jynxfree.jvm.ConstantPoolType;
-import com.github.david32768.jynxfree.jvm.Context;
+import com.github.david32768.jynxfree.jynx.LogIllegalArgumentException;
 
+// a cursor over the bytes of the class; an attribute narrows its bounds until it is left
 public class Buffer {
 
+    private static final VarHandle SHORT = MethodHandles.byteBufferViewVarHandle(short[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
     protected final ConstantPool pool;
-    protected final ByteBuffer bb;
+    protected final ByteBuffer bb; // only read at absolute positions
+    private int position;
+    private int limit;
 
     public Buffer(ConstantPool pool, ByteBuffer bb) {
-        this.pool = pool;
-        this.bb = bb;
+        this(pool, bb, bb.position(), bb.limit());
     }
 
-    public ByteBuffer bb() {
-        return bb;
+    protected Buffer(ConstantPool pool, ByteBuffer bb, int position, int limit) {
+        this.pool = pool;
+        this.bb = bb;
+        this.position = position;
+        this.limit = limit;
     }
 
     public ConstantPool pool() {
         return pool;
     }
+
+    public ClassContext classContext() {
+        return pool.classContext();
+    }
     
+    private int next(int size) {
+        int pos = position;
+        if (limit - pos < size) {
+            throw new BufferUnderflowException();
+        }
+        position = pos + size;
+        return pos;
+    }
+
     public int nextByte() {
-        return bb.get();
+        return bb.get(next(1));
     }
     
     public int nextUnsignedByte() {
-        return Byte.toUnsignedInt(bb.get());
+        return Byte.toUnsignedInt(bb.get(next(1)));
     }
     
     public int nextShort() {
-        return bb.getShort();
+        return (short)SHORT.get(bb, next(2));
     }
     
     public int nextUnsignedShort() {
-        return Short.toUnsignedInt(bb.getShort());
+        return Short.toUnsignedInt((short)SHORT.get(bb, next(2)));
     }
     
     public int nextInt() {
-        return bb.getInt();
+        return (int)INT.get(bb, next(4));
     }
     
     public int nextSize() {
-        int size = bb.getInt();
-        if (size < 0 || size > bb.remaining()) {
+        int size = nextInt();
+        if (size < 0 || size > remaining()) {
             // "size (%#x) is greater than (%#x) remaining"
-            LOG(M509,Integer.toUnsignedLong(size), bb.remaining());
-            size = bb.remaining();
+            classContext().log(M509,Integer.toUnsignedLong(size), remaining());
+            size = remaining();
         }
         return size;
     }
+
+    // rest of buffer is modified utf8
+    public String nextInlineUTF8() {
+        int start = position;
+        position = limit;
+        return CPEntry.fromUTF8CP(bb, start, limit, classContext());
+    }
     
     public CPEntry nextCPEntry() {
         return pool.getEntry(nextUnsignedShort());
@@ -67,7 +99,7 @@ public class Buffer {
     
     public CPEntry nextCPEntry(ConstantPoolType cptype) {
         CPEntry cp = nextCPEntry();
-        cp.getType().checkCPType(cptype);
+        checkCPType(cp.getType(), cptype);
         return cp;
     }
     
@@ -77,8 +109,11 @@ public class Buffer {
     }
     
     public String nextClassName() {
-        CPEntry classcp = nextCPEntry(ConstantPoolType.CONSTANT_Class);
-        int[] value = (int[])classcp.getValue();
+        return className(nextCPIndex(ConstantPoolType.CONSTANT_Class));
+    }
+
+    public String className(int classcp) {
+        int[] value = (int[])pool.getValue(classcp);
         assert value.length == 1;
         int x = value[0];
         return(String)pool.getValue(x);
@@ -88,11 +123,34 @@ public class Buffer {
         return pool.stringValue(cp);
     }
     
+    public int nextCPIndex(ConstantPoolType cptype) {
+        int cpindex = nextUnsignedShort();
+        checkCPType(pool.getType(cpindex), cptype);
+        return cpindex;
+    }
+
+    // zero if absent
+    public int nextOptCPIndex(ConstantPoolType cptype) {
+        int cpindex = nextUnsignedShort();
+        if (cpindex != 0) {
+            checkCPType(pool.getType(cpindex), cptype);
+        }
+        return cpindex;
+    }
+
     public Optional<CPEntry> nextOptCPEntry(ConstantPoolType cptype) {
         Optional<CPEntry> optentry = nextOptCPEntry();
-        optentry.ifPresent(cp->cp.getType().checkCPType(cptype));
+        optentry.ifPresent(cp->checkCPType(cp.getType(), cptype));
         return optentry;
     }
+
+    // checked here and not by JynxFree so that the exception is logged for this class
+    private static void checkCPType(ConstantPoolType actual, ConstantPoolType expected) {
+        if (actual != expected) {
+            // "cpentry type %s is invalid for %s"
+            throw new LogIllegalArgumentException(M519, actual, expected);
+        }
+    }
     
     public Optional<CPEntry> nextOptCPEntry() {
         int cpindex = nextUnsignedShort();
@@ -105,9 +163,11 @@ public class Buffer {
     
     public void advance(int increment) {
         assert increment >= 0;
-        int position = bb.position();
-        position = Math.addExact(position,increment);
-        bb.position(position);
+        int newposition = Math.addExact(position,increment);
+        if (newposition > limit) {
+            throw new IllegalArgumentException("newPosition > limit: (" + newposition + " > " + limit + ")");
+        }
+        position = newposition;
     }
     
     public ConstantPoolType nextPoolType() {
@@ -115,32 +175,33 @@ public class Buffer {
         return pool.getType(methodref);
     }
 
-    public AttributeBuffer attributeBuffer(Context context, String name, int size) {
-        return new AttributeBuffer(pool, extract(size), context, name);
-    }
-    
     public int position() {
-        return bb.position();
+        return position;
     }
     
+    public void skip(int size) {
+        if (size > remaining()) {
+            // "size (%#x) is greater than (%#x) remaining"
+            classContext().log(M509,Integer.toUnsignedLong(size), remaining());
+            size = remaining();
+        }
+        advance(size);
+    }
+
     public void advanceToLimit() {
-        bb.position(bb.limit());
+        position = limit;
     }
     
     public boolean hasRemaining() {
-        return bb.hasRemaining();
+        return position < limit;
     }
     
     public int remaining() {
-        return bb.remaining();
+        return limit - position;
     }
 
     public int limit() {
-        return bb.limit();
-    }
-    
-    public void limit(int limit) {
-        bb.limit(limit);
+        return limit;
     }
     
     public CodeBuffer asCodeBuffer() {
@@ -148,14 +209,26 @@ public class Buffer {
     }
         
     public Buffer duplicate() {
-        return new Buffer(pool, bb.duplicate());
+        return new Buffer(pool, bb, position, limit);
     }
     
-    protected ByteBuffer extract(int size) {
-        ByteBuffer tobb = bb.duplicate();
-        advance(size);
-        tobb.limit(position());
-        return tobb;
+    // limit is the end of the next size bytes; returns the previous limit
+    protected int narrow(int size) {
+        assert size >= 0;
+        int newlimit = Math.addExact(position, size);
+        if (newlimit > limit) {
+            throw new IllegalArgumentException("newPosition > limit: (" + newlimit + " > " + limit + ")");
+        }
+        int outer = limit;
+        limit = newlimit;
+        return outer;
+    }
+
+    // position is the end of the narrowed bytes
+    protected void widen(int outer) {
+        assert outer >= limit;
+        position = limit;
+        limit = outer;
     }
     
 }
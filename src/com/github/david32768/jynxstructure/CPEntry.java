@@ -1,11 +1,11 @@
 package com.github.david32768.jynxstructure;
 
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Objects;
 import java.util.Optional;
 
-import static com.github.david32768.jynxfree.jynx.Global.LOG;
 import static com.github.david32768.jynxstructure.my.Message.M510;
 import static com.github.david32768.jynxstructure.my.Message.M511;
 import static com.github.david32768.jynxstructure.my.Message.M512;
@@ -33,39 +33,65 @@ public class CPEntry {
         return value;
     }
 
-    public static CPEntry fromConstantPool(ByteBuffer block) {
-        int tag = Byte.toUnsignedInt(block.get());
-        Optional<ConstantPoolType> cpopt = ConstantPoolType.getInstance(tag);
-        if (!cpopt.isPresent()) {
+    private static final ConstantPoolType[] TYPES = new ConstantPoolType[256];
+    
+    static {
+        for (int tag = 0; tag < TYPES.length; ++tag) {
+            Optional<ConstantPoolType> cpopt = ConstantPoolType.getInstance(tag);
+            if (cpopt.isPresent()) {
+                TYPES[tag] = cpopt.get();
+            }
+        }
+    }
+
+    public static ConstantPoolType typeOf(int tag) {
+        ConstantPoolType cp = TYPES[tag];
+        if (cp == null) {
             // "tag %d not found"
             throw new LogIllegalArgumentException(M510, tag);
         }
-        ConstantPoolType cp = cpopt.get();
+        return cp;
+    }
+
+    // size of entry after tag
+    public static int entrySize(ByteBuffer block, int offset, ConstantPoolType cp) {
+        return switch(cp.getEntryType()) {
+            case UTF8 -> 2 + Short.toUnsignedInt(block.getShort(offset));
+            case INTEGER, FLOAT -> 4;
+            case LONG, DOUBLE -> 8;
+            case INDIRECT -> 2 * cp.poolct();
+            case BOOTSTRAP -> 4;
+            case HANDLE -> 3;
+            default -> throw new AssertionError();
+        };
+    }
+
+    public static CPEntry fromConstantPool(ByteBuffer block, int offset, ConstantPoolType cp) {
         EntryType et = cp.getEntryType();
         Object value = switch(et) {
-            case UTF8 -> fromCPUTF8(block);
-            case INTEGER -> block.getInt();
-            case FLOAT -> block.getFloat();
-            case LONG -> block.getLong();
-            case DOUBLE -> block.getDouble();
+            case UTF8 -> fromCPUTF8(block, offset);
+            case INTEGER -> block.getInt(offset);
+            case FLOAT -> block.getFloat(offset);
+            case LONG -> block.getLong(offset);
+            case DOUBLE -> block.getDouble(offset);
             case INDIRECT -> {
                 int itemct = cp.poolct();
                 int[] items = new int[itemct];
                 for (int j = 0; j < itemct; ++j) {
-                    items[j] = Short.toUnsignedInt(block.getShort());
+                    items[j] = Short.toUnsignedInt(block.getShort(offset + 2*j));
                 }
                 yield items;
             }
             case BOOTSTRAP -> {
                 int[] items = new int[2];
-                items[0] = Short.toUnsignedInt(block.getShort());
-                items[1] = Short.toUnsignedInt(block.getShort());
+                items[0] = Short.toUnsignedInt(block.getShort(offset));
+                items[1] = Short.toUnsignedInt(block.getShort(offset + 2));
                 yield items;
             }
             case HANDLE -> {
                 int[] items = new int[2];
-                items[0] = Byte.toUnsignedInt(block.get());
-                items[1] = Short.toUnsignedInt(block.getShort());
+                items[0] = Byte.toUnsignedInt(block.get(offset));
+                items[1] = Short.toUnsignedInt(block.getShort(offset + 1));
                 yield items;
             }
             default -> throw new AssertionError();
@@ -73,45 +99,109 @@ public class CPEntry {
         return new CPEntry(cp,value);
     }
 
-    private static String fromCPUTF8(ByteBuffer block) {
-        int size = Short.toUnsignedInt(block.getShort());
-        byte[] entry = new byte[size];
-        block.get(entry);
-        return fromUTF8CP(ByteBuffer.wrap(entry));
+    private static String fromCPUTF8(ByteBuffer block, int offset) {
+        int size = Short.toUnsignedInt(block.getShort(offset));
+        int start = offset + 2;
+        if (asciiLength(block, start, start + size) == size) {
+            return latin1(block, start, size);
+        }
+        StringBuilder sb = new StringBuilder(size);
+        // any bad byte sequence has been logged by checkCPUTF8
+        scanUTF8(block, start, start + size, null, sb);
+        return sb.toString();
+    }
+
+    public static void checkCPUTF8(ByteBuffer block, int offset, ClassContext ctx) {
+        int size = Short.toUnsignedInt(block.getShort(offset));
+        scanUTF8(block, offset + 2, offset + 2 + size, ctx, null);
     }
 
     private final static int BAD_CHAR = '?';
     
-    public static String fromUTF8CP(ByteBuffer block) {
-        StringBuilder sb = new StringBuilder(block.remaining());
-        while (block.hasRemaining()) {
-            int x = Byte.toUnsignedInt(block.get());
+    public static String fromUTF8CP(ByteBuffer block, ClassContext ctx) {
+        int start = block.position();
+        block.position(block.limit());
+        return fromUTF8CP(block, start, block.limit(), ctx);
+    }
+
+    public static String fromUTF8CP(ByteBuffer block, int start, int end, ClassContext ctx) {
+        int size = end - start;
+        if (asciiLength(block, start, start + size) == size) {
+            return latin1(block, start, size);
+        }
+        StringBuilder sb = new StringBuilder(size);
+        scanUTF8(block, start, start + size, ctx, sb);
+        return sb.toString();
+    }
+
+    private static String latin1(ByteBuffer block, int start, int size) {
+        byte[] bytes = new byte[size];
+        block.get(start, bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    private static final long LOW_BITS = 0x0101010101010101L;
+
+    // number of bytes from start that are in [1, 0x7f]
+    private static int asciiLength(ByteBuffer block, int start, int end) {
+        int i = start;
+        while (end - i >= Long.BYTES) {
+            long word = block.getLong(i);
+            // a byte with the high bit set, or a zero byte which borrows, sets a high bit
+            if (((word | (word - LOW_BITS)) & HIGH_BITS) != 0) {
+                break;
+            }
+            i += Long.BYTES;
+        }
+        while (i < end && block.get(i) > 0) {
+            ++i;
+        }
+        return i - start;
+    }
+
+    // logs bad byte sequences if ctx is not null; appends chars if sb is not null
+    private static void scanUTF8(ByteBuffer block, int start, int end, ClassContext ctx, StringBuilder sb) {
+        int i = start;
+        while (i < end) {
+            int ascii = asciiLength(block, i, end);
+            if (sb != null) {
+                for (int j = i; j < i + ascii; ++j) {
+                    sb.append((char)block.get(j));
+                }
+            }
+            i += ascii;
+            if (i == end) {
+                break;
+            }
+            int x = Byte.toUnsignedInt(block.get(i++));
             int c;
-            if (x < 0x80 && x > 0) {
-                c = x;
-            } else if ((x & 0xe0) == 0xc0 && block.remaining() >= 1) {
-                int y = Byte.toUnsignedInt(block.get());
-                if ((y & 0xc0) != 0x80) {
+            if ((x & 0xe0) == 0xc0 && end - i >= 1) {
+                int y = Byte.toUnsignedInt(block.get(i++));
+                if ((y & 0xc0) != 0x80 && ctx != null) {
                     // "bad byte sequence %2x %2x"
-                    LOG(M511, x, y);
+                    ctx.log(M511, x, y);
                 }
                 c = ((x & 0x1f) << 6) + (y & 0x3f);
-            } else if ((x & 0xf0) == 0xe0 && block.remaining() >= 2) {
-                int y = Byte.toUnsignedInt(block.get());
-                int z = Byte.toUnsignedInt(block.get());
-                if ((y & 0xc0) != 0x80 || (z & 0xc0) != 0x80) {
+            } else if ((x & 0xf0) == 0xe0 && end - i >= 2) {
+                int y = Byte.toUnsignedInt(block.get(i++));
+                int z = Byte.toUnsignedInt(block.get(i++));
+                if (((y & 0xc0) != 0x80 || (z & 0xc0) != 0x80) && ctx != null) {
                     // "bad byte sequence %2x %2x %2x"
-                    LOG(M512, x, y, z);
+                    ctx.log(M512, x, y, z);
                 }
                 c = ((x & 0xf) << 12) + ((y & 0x3f) << 6) + (z & 0x3f);
             } else {
-                // "bad byte sequence = %x"
-                LOG(M513, x);
+                if (ctx != null) {
+                    // "bad byte sequence = %x"
+                    ctx.log(M513, x);
+                }
                 c = BAD_CHAR;
             }
-            sb.append((char)c);
+            if (sb != null) {
+                sb.append((char)c);
+            }
         }
-        return sb.toString();
     }
 
     public String typeString() {
@@ -0,0 +1,98 @@
+package com.github.david32768.jynxstructure;
+
+import static com.github.david32768.jynxstructure.my.Message.M539;
+
+import com.github.david32768.jynxfree.jvm.AccessFlag;
+import com.github.david32768.jynxfree.jvm.Context;
+import com.github.david32768.jynxfree.jvm.JvmVersion;
+import com.github.david32768.jynxfree.jynx.GlobalOption;
+import com.github.david32768.jynxfree.jynx.JynxMessage;
+
+public class ClassContext {
+
+    private final int version; // minor << 16 | major
+    private final JvmVersion jvmVersion;
+    private final StructureOptions options;
+    private final Diagnostics diagnostics;
+    private final StructureVisitor visitor;
+    private final PhaseTimer timer;
+    private final BoundsStack bounds;
+
+    public ClassContext(int version, StructureOptions options, Diagnostics diagnostics,
+            StructureVisitor visitor, PhaseTimer timer) {
+        this.version = version;
+        this.jvmVersion = JvmVersion.fromASM(version);
+        this.options = options;
+        this.diagnostics = diagnostics;
+        this.visitor = visitor;
+        this.timer = timer;
+        this.bounds = new BoundsStack();
+    }
+
+    public JvmVersion jvmVersion() {
+        return jvmVersion;
+    }
+
+    public boolean option(GlobalOption option) {
+        return options.has(option);
+    }
+
+    public boolean option(StructureOption option) {
+        return options.has(option);
+    }
+
+    // instructions, frames and attribute entries
+    public boolean detail() {
+        return option(GlobalOption.DETAIL) || option(GlobalOption.DETAIL_INSTRUCTIONS)
+                || option(StructureOption.DETAIL_ON_ERROR);
+    }
+
+    public boolean detailConstantPool() {
+        return option(GlobalOption.DETAIL) || option(GlobalOption.DETAIL_CONSTANT_POOL)
+                || option(StructureOption.DETAIL_ON_ERROR);
+    }
+
+    public StructureOptions options() {
+        return options;
+    }
+
+    public Diagnostics diagnostics() {
+        return diagnostics;
+    }
+
+    public StructureVisitor visitor() {
+        return visitor;
+    }
+
+    public PhaseTimer timer() {
+        return timer;
+    }
+
+    BoundsStack bounds() {
+        return bounds;
+    }
+
+    // checked here and not by JynxFree so that they are reported as a message of this class
+    public void checkAccess(int access, Context context) {
+        int undefined = AccessFlags.undefined(access, context, version);
+        if (undefined != 0) {
+            // "access flags %#x are not defined for %s in %s"
+            log(M539, undefined, context, jvmVersion);
+        }
+    }
+
+    // flags not defined are omitted, having been reported by checkAccess
+    public String accessString(int access, Context context) {
+        int defined = access & ~AccessFlags.undefined(access, context, version);
+        return AccessFlag.getEnumSet(defined, context, jvmVersion).toString();
+    }
+
+    public void log(JynxMessage msg, Object... objs) {
+        diagnostics.log(msg, objs);
+    }
+
+    public void log(Exception ex) {
+        diagnostics.log(ex);
+    }
+
+}
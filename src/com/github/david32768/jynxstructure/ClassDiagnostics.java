@@ -0,0 +1,85 @@
+package com.github.david32768.jynxstructure;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.david32768.jynxfree.jvm.Context;
+import com.github.david32768.jynxfree.jynx.JynxMessage;
+
+// messages for one class, kept apart from any other class being checked
+public class ClassDiagnostics implements Diagnostics {
+
+    private final List<String> messages;
+    private final boolean debug;
+    private final LogContext context;
+
+    private String lastline;
+    private int errors;
+    private int warnings;
+
+    public ClassDiagnostics(boolean debug) {
+        this.messages = new ArrayList<>();
+        this.debug = debug;
+        this.context = new LogContext();
+        this.lastline = "";
+    }
+
+    @Override
+    public void setContext(Context context, boolean attribute, int offset) {
+        this.context.set(context, attribute, offset);
+    }
+
+    @Override
+    public void log(JynxMessage msg, Object... objs) {
+        switch (msg.getLogtype()) {
+            case ERROR -> ++errors;
+            case WARNING -> ++warnings;
+            default -> {}
+        }
+        add(msg.format(objs));
+    }
+
+    @Override
+    public void log(Exception ex) {
+        ++errors;
+        String msg = ex.getMessage();
+        add(msg == null? ex.toString(): msg);
+        if (debug) {
+            for (StackTraceElement ste : ex.getStackTrace()) {
+                messages.add("    at " + ste);
+            }
+        }
+    }
+
+    private void add(String msg) {
+        String line = context.line();
+        if (!line.equals(lastline)) {
+            messages.add(line);
+            lastline = line;
+        }
+        messages.add("  " + msg);
+    }
+
+    @Override
+    public int errors() {
+        return errors;
+    }
+
+    @Override
+    public int warnings() {
+        return warnings;
+    }
+
+    public void print(PrintWriter pw) {
+        for (String msg : messages) {
+            pw.println(msg);
+        }
+    }
+
+    @Override
+    public boolean end(String classname) {
+        return errors == 0;
+    }
+
+}
@@ -0,0 +1,26 @@
+package com.github.david32768.jynxstructure;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+public interface ClassInput {
+
+    String name();
+
+    long size(); // -1 if not known without reading
+
+    default long crc() { // -1 if not known without reading
+        return -1;
+    }
+
+    default String group() { // e.g. module for a per module summary
+        return "";
+    }
+
+    default boolean readBlocks() { // read from disk or inflated, not in memory, so read ahead of checking
+        return false;
+    }
+
+    ByteBuffer read() throws IOException;
+
+}
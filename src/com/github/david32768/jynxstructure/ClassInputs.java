@@ -0,0 +1,473 @@
+package com.github.david32768.jynxstructure;
+
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.foreign.Arena;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import com.github.david32768.jynxfree.jynx.ClassUtil;
+
+public class ClassInputs implements Closeable {
+
+    private static final String CLASS_SUFFIX = ".class";
+    private static final String LIST_PREFIX = "@";
+    private static final String COMMENT_PREFIX = "#";
+    
+    // jrt[=java-home][@module{,module}]
+    private static final String RUNTIME = "jrt";
+    private static final char RUNTIME_HOME = '=';
+    private static final char RUNTIME_MODULES = '@';
+    private static final String MODULES_DIR = "/modules";
+
+    private static final String NESTED_SEPARATOR = "!/";
+    private static final int INITIAL_ENTRY_SIZE = 1 << 16;
+
+    private final List<ClassInput> inputs;
+    private final List<ClassStream> streams;
+    private final List<Integer> inputSlots; // output order is argument order
+    private final List<Integer> streamSlots;
+    private final List<Closeable> archives;
+    private final Arena arena; // of mapped archives; read by all checking threads
+
+    private ClassInputs() {
+        this.inputs = new ArrayList<>();
+        this.streams = new ArrayList<>();
+        this.inputSlots = new ArrayList<>();
+        this.streamSlots = new ArrayList<>();
+        this.archives = new ArrayList<>();
+        this.arena = Arena.ofShared();
+    }
+
+    public static boolean isBatch(String arg) {
+        return arg.startsWith(LIST_PREFIX)
+                || isRuntime(arg)
+                || isArchive(arg)
+                || Files.isDirectory(Path.of(arg));
+    }
+
+    private static boolean isRuntime(String arg) {
+        return arg.equals(RUNTIME)
+                || arg.startsWith(RUNTIME + RUNTIME_HOME)
+                || arg.startsWith(RUNTIME + RUNTIME_MODULES);
+    }
+
+    private static boolean isArchive(String arg) {
+        String lower = arg.toLowerCase();
+        return lower.endsWith(".jar") || lower.endsWith(".zip")
+                || lower.endsWith(".war") || lower.endsWith(".ear")
+                || lower.endsWith(".jmod");
+    }
+
+    // e.g. BOOT-INF/lib/*.jar, WEB-INF/lib/*.jar or a war in an ear
+    private static boolean isNested(String entryname) {
+        String lower = entryname.toLowerCase();
+        return lower.endsWith(".jar") || lower.endsWith(".zip")
+                || lower.endsWith(".war") || lower.endsWith(".ear");
+    }
+
+    public static ClassInputs of(List<String> args) throws IOException {
+        ClassInputs result = new ClassInputs();
+        try {
+            for (String arg : args) {
+                result.add(arg);
+            }
+        } catch (IOException | RuntimeException ex) {
+            result.close();
+            throw ex;
+        }
+        return result;
+    }
+
+    public List<ClassInput> inputs() {
+        return Collections.unmodifiableList(inputs);
+    }
+
+    public List<ClassStream> streams() {
+        return Collections.unmodifiableList(streams);
+    }
+
+    public int slots() {
+        return inputs.size() + streams.size();
+    }
+
+    // position in the output of inputs().get(index)
+    public int inputSlot(int index) {
+        return inputSlots.get(index);
+    }
+
+    public int streamSlot(int index) {
+        return streamSlots.get(index);
+    }
+
+    private void addInput(ClassInput input) {
+        inputSlots.add(slots());
+        inputs.add(input);
+    }
+
+    private void addStream(ClassStream stream) {
+        streamSlots.add(slots());
+        streams.add(stream);
+    }
+
+    private void add(String arg) throws IOException {
+        if (arg.startsWith(LIST_PREFIX)) {
+            addList(Path.of(arg.substring(LIST_PREFIX.length())));
+        } else if (isRuntime(arg)) {
+            addRuntime(arg.substring(RUNTIME.length()));
+        } else if (isArchive(arg)) {
+            addArchive(Path.of(arg));
+        } else if (Files.isDirectory(Path.of(arg))) {
+            addDirectory(Path.of(arg));
+        } else {
+            addInput(new NamedClass(arg));
+        }
+    }
+
+    private void addList(Path list) throws IOException {
+        for (String line : Files.readAllLines(list)) {
+            line = line.strip();
+            if (line.isEmpty() || line.startsWith(COMMENT_PREFIX)) {
+                continue;
+            }
+            add(line);
+        }
+    }
+
+    // sizes are from the attributes read by the walk
+    private void addDirectory(Path dir) throws IOException {
+        List<ClassFile> files = new ArrayList<>();
+        Files.walkFileTree(dir, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                if (file.toString().endsWith(CLASS_SUFFIX)) {
+                    if (attrs.isRegularFile()) {
+                        files.add(new ClassFile(file, attrs.size()));
+                    } else if (attrs.isSymbolicLink() && Files.isRegularFile(file)) {
+                        files.add(new ClassFile(file, Files.size(file)));
+                    }
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        files.sort(Comparator.comparing(ClassFile::path));
+        files.forEach(this::addInput);
+    }
+
+    private void addRuntime(String spec) throws IOException {
+        Set<String> modules = Set.of();
+        int modindex = spec.lastIndexOf(RUNTIME_MODULES);
+        if (modindex >= 0) {
+            modules = Set.of(spec.substring(modindex + 1).split(","));
+            spec = spec.substring(0, modindex);
+        }
+        URI jrturi = URI.create("jrt:/");
+        FileSystem jrt;
+        if (spec.isEmpty()) {
+            jrt = FileSystems.getFileSystem(jrturi);
+        } else {
+            assert spec.charAt(0) == RUNTIME_HOME;
+            // uses jrt-fs.jar and lib/modules of that image
+            jrt = FileSystems.newFileSystem(jrturi, Map.of("java.home", spec.substring(1)));
+            archives.add(jrt);
+        }
+        Path root = jrt.getPath(MODULES_DIR);
+        List<Path> moduledirs;
+        try (Stream<Path> paths = Files.list(root)) {
+            moduledirs = paths.sorted().toList();
+        }
+        Set<String> found = new HashSet<>();
+        for (Path moduledir : moduledirs) {
+            String module = moduledir.getFileName().toString();
+            if (!modules.isEmpty() && !modules.contains(module)) {
+                continue;
+            }
+            found.add(module);
+            try (Stream<Path> paths = Files.walk(moduledir)) {
+                paths.filter(p -> p.toString().endsWith(CLASS_SUFFIX))
+                        .filter(Files::isRegularFile)
+                        .sorted()
+                        .forEach(p -> addInput(new RuntimeClass(module, p)));
+            }
+        }
+        for (String module : modules) {
+            if (!found.contains(module)) {
+                throw new NoSuchFileException(MODULES_DIR + "/" + module);
+            }
+        }
+    }
+
+    private void addArchive(Path path) throws IOException {
+        Optional<MappedArchive> mapped = MappedArchive.open(path, arena);
+        if (mapped.isPresent()) {
+            archives.add(mapped.get()); // ends its inflaters
+            addMapped(mapped.get());
+            return;
+        }
+        ZipFile zip = new ZipFile(path.toFile());
+        archives.add(zip);
+        for (ZipEntry ze : zip.stream().toList()) {
+            if (ze.isDirectory()) {
+                continue;
+            }
+            if (ze.getName().endsWith(CLASS_SUFFIX)) {
+                addInput(new ArchiveEntry(path, zip, ze));
+            } else if (isNested(ze.getName())) {
+                addStream(new NestedArchive(path + NESTED_SEPARATOR + ze.getName(), () -> zip.getInputStream(ze)));
+            }
+        }
+    }
+
+    private void addMapped(MappedArchive archive) throws IOException {
+        for (MappedArchive.Entry entry : archive.entries()) {
+            if (entry.entryname().endsWith(CLASS_SUFFIX)) {
+                addInput(entry);
+            } else if (isNested(entry.entryname())) {
+                Optional<MappedArchive> nested = archive.nested(entry);
+                if (nested.isPresent()) {
+                    addMapped(nested.get());
+                } else {
+                    addStream(new NestedArchive(entry.name(), entry::open));
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException first = null;
+        for (Closeable archive : archives) {
+            try {
+                archive.close();
+            } catch (IOException ex) {
+                if (first == null) {
+                    first = ex;
+                } else {
+                    first.addSuppressed(ex);
+                }
+            }
+        }
+        archives.clear();
+        if (arena.scope().isAlive()) {
+            arena.close(); // mapped archives are unmapped now rather than when collected
+        }
+        if (first != null) {
+            throw first;
+        }
+    }
+
+    private record NamedClass(String name) implements ClassInput {
+
+        @Override
+        public long size() {
+            return -1;
+        }
+
+        @Override
+        public boolean readBlocks() {
+            return true;
+        }
+
+        @Override
+        public ByteBuffer read() throws IOException {
+            return ByteBuffer.wrap(ClassUtil.getClassBytes(name));
+        }
+
+    }
+
+    private record ClassFile(Path path, long size) implements ClassInput {
+
+        @Override
+        public String name() {
+            return path.toString();
+        }
+
+        @Override
+        public boolean readBlocks() {
+            return true;
+        }
+
+        @Override
+        public ByteBuffer read() throws IOException {
+            return ByteBuffer.wrap(Files.readAllBytes(path));
+        }
+
+    }
+
+    private record RuntimeClass(String module, Path path) implements ClassInput {
+
+        @Override
+        public String name() {
+            return "jrt:" + path.toString().substring(MODULES_DIR.length());
+        }
+
+        @Override
+        public String group() {
+            return "module " + module;
+        }
+
+        @Override
+        public long size() {
+            try {
+                return Files.size(path);
+            } catch (IOException ex) {
+                return -1;
+            }
+        }
+
+        @Override
+        public ByteBuffer read() throws IOException {
+            return ByteBuffer.wrap(Files.readAllBytes(path));
+        }
+
+    }
+
+    private record ArchiveEntry(Path archive, ZipFile zip, ZipEntry entry) implements ClassInput {
+
+        @Override
+        public String name() {
+            return archive + "!/" + entry.getName();
+        }
+
+        @Override
+        public long size() {
+            return entry.getSize();
+        }
+
+        @Override
+        public long crc() {
+            return entry.getCrc();
+        }
+
+        @Override
+        public boolean readBlocks() {
+            return true;
+        }
+
+        @Override
+        public ByteBuffer read() throws IOException {
+            try (InputStream is = zip.getInputStream(entry)) {
+                return ByteBuffer.wrap(is.readAllBytes());
+            }
+        }
+
+    }
+
+    private interface Opener {
+
+        InputStream open() throws IOException;
+
+    }
+
+    // only one class of the nested archive is in memory at a time
+    private record NestedArchive(String name, Opener opener) implements ClassStream {
+
+        @Override
+        public void forEach(Consumer<ClassInput> action) throws IOException {
+            try (InputStream is = opener.open();
+                    ZipInputStream zis = new ZipInputStream(is)) {
+                forEach(name, zis, new EntryBuffer(), action);
+            }
+        }
+
+        private static void forEach(String archive, ZipInputStream zis, EntryBuffer buffer,
+                Consumer<ClassInput> action) throws IOException {
+            ZipEntry ze;
+            while ((ze = zis.getNextEntry()) != null) {
+                if (ze.isDirectory()) {
+                    continue;
+                }
+                String name = archive + NESTED_SEPARATOR + ze.getName();
+                if (ze.getName().endsWith(CLASS_SUFFIX)) {
+                    ByteBuffer bytes = buffer.read(zis, ze.getSize());
+                    // crc is known after the entry is read
+                    action.accept(new StreamedClass(name, ze.getCrc(), bytes));
+                } else if (isNested(ze.getName())) {
+                    try (ZipInputStream nested = new ZipInputStream(new Unclosed(zis))) {
+                        forEach(name, nested, buffer, action);
+                    }
+                }
+            }
+        }
+
+    }
+
+    // the outer entry is left open for the next entry
+    private static final class Unclosed extends FilterInputStream {
+
+        private Unclosed(InputStream is) {
+            super(is);
+        }
+
+        @Override
+        public void close() {
+        }
+
+    }
+
+    private static final class EntryBuffer {
+
+        private byte[] bytes = new byte[INITIAL_ENTRY_SIZE];
+
+        private ByteBuffer read(InputStream is, long size) throws IOException {
+            if (size > Integer.MAX_VALUE - 8) {
+                throw new IOException("entry too large: " + size);
+            }
+            if (size > bytes.length) {
+                bytes = new byte[(int)size];
+            }
+            int length = 0;
+            while (true) {
+                if (length == bytes.length) {
+                    bytes = Arrays.copyOf(bytes, 2 * bytes.length);
+                }
+                int ct = is.read(bytes, length, bytes.length - length);
+                if (ct < 0) {
+                    break;
+                }
+                length += ct;
+            }
+            return ByteBuffer.wrap(bytes, 0, length).slice();
+        }
+
+    }
+
+    private record StreamedClass(String name, long crc, ByteBuffer bytes) implements ClassInput {
+
+        @Override
+        public long size() {
+            return bytes.remaining();
+        }
+
+        @Override
+        public ByteBuffer read() {
+            return bytes.duplicate();
+        }
+
+    }
+
+}
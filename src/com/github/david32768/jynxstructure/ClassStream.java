@@ -0,0 +1,14 @@
+package com.github.david32768.jynxstructure;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+// classes that can only be read in order, e.g. in a compressed archive nested in an archive
+public interface ClassStream {
+
+    String name();
+
+    // each input is only valid during the call of action
+    void forEach(Consumer<ClassInput> action) throws IOException;
+
+}
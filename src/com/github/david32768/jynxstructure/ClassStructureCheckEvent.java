@@ -0,0 +1,45 @@
+package com.github.david32768.jynxstructure;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.github.david32768.jynxstructure.ClassStructureCheck")
+@Label("Class Structure Check")
+@Category("JynxStructure")
+final class ClassStructureCheckEvent extends Event {
+
+    @Label("Class")
+    String className;
+
+    @Label("Size")
+    @DataAmount
+    long size;
+
+    @Label("Errors")
+    int errors;
+
+    @Label("Warnings")
+    int warnings;
+
+    // from this_class when the caller has no name
+    void setClassName(String klass) {
+        className = klass;
+    }
+
+    // klass is null to keep the name from this_class
+    void commit(String klass, long bytes, Diagnostics diagnostics) {
+        if (shouldCommit()) {
+            if (klass != null) {
+                className = klass;
+            }
+            size = bytes;
+            errors = diagnostics.errors();
+            warnings = diagnostics.warnings();
+            commit();
+        }
+    }
+
+}
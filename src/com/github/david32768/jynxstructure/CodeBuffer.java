@@ -4,13 +4,19 @@ import java.nio.ByteBuffer;
 
 import com.github.david32768.jynxfree.jvm.Context;
 
-public class CodeBuffer extends AbstractCodeBuffer {
+// the instructions and then the rest of a Code attribute, whose attributes are pushed
+public class CodeBuffer extends InstBuffer {
     
     private int stackmapOffset;
 
-    protected CodeBuffer(ConstantPool pool, ByteBuffer bb, String name,
-            int maxlocal, CodeLabels labels) {
-        super(pool, bb, name, maxlocal,  labels);
+    // position is the start of the instructions; limit is the end of the Code attribute
+    public CodeBuffer(ConstantPool pool, ByteBuffer bb, int position, int limit, int maxlocal, int codesz) {
+        this(pool, bb, position, limit, maxlocal, new CodeLabels(codesz, pool.classContext()));
+    }
+
+    protected CodeBuffer(ConstantPool pool, ByteBuffer bb, int position, int limit, int maxlocal,
+            CodeLabels labels) {
+        super(pool, bb, position, limit, maxlocal, labels);
         stackmapOffset = -1;
     }
     
@@ -20,9 +26,21 @@ public class CodeBuffer extends AbstractCodeBuffer {
     }
     
     @Override
-    public CodeBuffer attributeBuffer(Context context, String name, int size) {
+    public void push(Context context, String name, int size) {
         assert context ==  Context.CODE;
-        return new CodeBuffer(pool, extract(size), name, maxlocal, labels);
+        super.push(context, name, size);
+        stackmapOffset = -1;
+    }
+
+    // the first codesz bytes
+    public void checkInsn(IndentPrinter ptr, int codesz) {
+        push(Context.CODE, name(), codesz);
+        try {
+            checkInsn(ptr);
+        } finally {
+            pop();
+        }
+        labels.checkLabels();
     }
     
     public int nextLabel() {
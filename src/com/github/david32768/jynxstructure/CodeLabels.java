@@ -2,7 +2,6 @@ package com.github.david32768.jynxstructure;
 
 import java.util.BitSet;
 
-import static com.github.david32768.jynxfree.jynx.Global.LOG;
 import static com.github.david32768.jynxstructure.my.Message.M501;
 import static com.github.david32768.jynxstructure.my.Message.M504;
 import static com.github.david32768.jynxstructure.my.Message.M524;
@@ -10,13 +9,15 @@ import static com.github.david32768.jynxstructure.my.Message.M524;
 public class CodeLabels {
     
     private final int codesz;
+    private final ClassContext ctx;
 
     private final BitSet poslabels;
     private final BitSet actlabels;
     private final BitSet newlabels;
 
-    public CodeLabels(int codesz) {
+    public CodeLabels(int codesz, ClassContext ctx) {
         this.codesz = codesz;
+        this.ctx = ctx;
         this.poslabels = new BitSet(codesz + 1);
         this.actlabels = new BitSet(codesz + 1);
         this.newlabels = new BitSet(codesz + 1);
@@ -26,11 +27,11 @@ public class CodeLabels {
         int offset = Math.addExact(instoff, broff);
         if (offset < 0 || offset > codesz) {
             // "label offset (%d) is negative or greater than code size (%d)"
-            LOG(M501, offset, codesz);
+            ctx.log(M501, offset, codesz);
             offset = 0;
         } else if ((broff  < 0 || poslabels.get(codesz)) && !poslabels.get(offset)) {
             // "offset %d is not an instruction"
-            LOG(M504, offset);
+            ctx.log(M504, offset);
         }
         actlabels.set(offset);
         return offset;
@@ -41,7 +42,7 @@ public class CodeLabels {
         badlabels.andNot(poslabels);
         if (!badlabels.isEmpty()) {
             // "branches to middle of instruction - %s"
-            LOG(M524,badlabels.toString());
+            ctx.log(M524,badlabels.toString());
         }
         poslabels.set(codesz);
     }
@@ -51,6 +52,11 @@ public class CodeLabels {
         poslabels.set(instoff);
     }
    
+    public int instructions() {
+        int ct = poslabels.cardinality();
+        return poslabels.get(codesz)? ct - 1: ct; // end of code is set by checkLabels
+    }
+
     public void setNewInst(int instoff) {
         newlabels.set(instoff);
     }
@@ -1,5 +1,6 @@
 package com.github.david32768.jynxstructure;
 
+import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.BitSet;
@@ -8,8 +9,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import static com.github.david32768.jynxfree.jynx.Global.LOG;
-import static com.github.david32768.jynxfree.jynx.Global.OPTION;
 import static com.github.david32768.jynxstructure.my.Message.M505;
 import static com.github.david32768.jynxstructure.my.Message.M514;
 import static com.github.david32768.jynxstructure.my.Message.M515;
@@ -24,6 +23,7 @@ import static com.github.david32768.jynxstructure.my.Message.M536;
 import com.github.david32768.jynxfree.jvm.ConstantPoolType;
 import com.github.david32768.jynxfree.jvm.HandleType;
 import com.github.david32768.jynxfree.jvm.JvmVersion;
+import com.github.david32768.jynxfree.jvm.StandardAttribute;
 import com.github.david32768.jynxfree.jynx.GlobalOption;
 import com.github.david32768.jynxfree.jynx.LogIllegalArgumentException;
 import com.github.david32768.jynxfree.jynx.LogUnexpectedEnumValueException;
@@ -31,17 +31,34 @@ import com.github.david32768.jynxfree.jynx.StringUtil;
 
 public class ConstantPool {
 
-    private final CPEntry[] entries;
+    private static final StandardAttribute[] STANDARD_ATTRIBUTES = StandardAttribute.values();
+    private static final int UNRESOLVED = 0;
+    private static final int NOT_STANDARD = 1;
+    private static final int FIRST_STANDARD = 2;
+
+    private final ByteBuffer bb;
+    private final byte[] tags; // 0 if second slot of long or double
+    private final int[] offsets; // of entry after tag
+    private final int[] operands; // two per entry; cp indices, handle kind and index or bootstrap and index
+    private final CPEntry[] entries; // decoded when first needed
+    private final ClassContext ctx;
     private final JvmVersion jvmVersion;
     private final List<CPEntry[]> bootstraps;
     private final BitSet used;
     private final BitSet usedboot;
 
-    private ConstantPool(CPEntry[] entries, JvmVersion jvmversion) {
-        this.entries = entries.clone();
-        this.jvmVersion = jvmversion;
+    private byte[] attributes; // by attribute name index; UNRESOLVED, NOT_STANDARD or FIRST_STANDARD + ordinal
+
+    private ConstantPool(ByteBuffer bb, byte[] tags, int[] offsets, int[] operands, ClassContext ctx) {
+        this.bb = bb;
+        this.tags = tags;
+        this.offsets = offsets;
+        this.operands = operands;
+        this.entries = new CPEntry[tags.length];
+        this.ctx = ctx;
+        this.jvmVersion = ctx.jvmVersion();
         this.bootstraps = new ArrayList<>();
-        this.used = new BitSet(entries.length);
+        this.used = new BitSet(tags.length);
         this.usedboot = new BitSet();
     }
 
@@ -49,27 +66,75 @@ public class ConstantPool {
         this.bootstraps.add(bootstrap);
     }
     
+    public ClassContext classContext() {
+        return ctx;
+    }
+
+    // null if not a standard attribute name; looked up by name once per class
+    public StandardAttribute standardAttribute(int namecp) {
+        if (attributes == null) {
+            assert FIRST_STANDARD + STANDARD_ATTRIBUTES.length <= 0xff;
+            attributes = new byte[tags.length];
+        }
+        int kind = Byte.toUnsignedInt(attributes[namecp]);
+        if (kind == UNRESOLVED) {
+            StandardAttribute attr = StandardAttribute.getInstance((String)getValue(namecp));
+            kind = attr == null? NOT_STANDARD: FIRST_STANDARD + attr.ordinal();
+            attributes[namecp] = (byte)kind;
+        }
+        return kind == NOT_STANDARD? null: STANDARD_ATTRIBUTES[kind - FIRST_STANDARD];
+    }
+
     public int last() {
-        int last = entries.length - 1;
-        return entries[last] == null? last - 1: last;
+        int last = tags.length - 1;
+        return tags[last] == 0? last - 1: last;
     }
 
-    public static ConstantPool getInstance(ByteBuffer bb, JvmVersion jvmversion) {
+    public static ConstantPool getInstance(ByteBuffer bb, ClassContext ctx) {
         int entryct = Short.toUnsignedInt(bb.getShort());
-        CPEntry[] entries = new CPEntry[entryct];
+        byte[] tags = new byte[entryct];
+        int[] offsets = new int[entryct];
+        int[] operands = new int[2 * entryct];
         for (int i = 1; i < entryct;++i) {
-            CPEntry cp  = CPEntry.fromConstantPool(bb);
-            entries[i] = cp;
-            ConstantPoolType type = cp.getType();
+            int tag = Byte.toUnsignedInt(bb.get());
+            ConstantPoolType type = CPEntry.typeOf(tag);
+            tags[i] = (byte)tag;
+            int offset = bb.position();
+            offsets[i] = offset;
+            int size = CPEntry.entrySize(bb, offset, type);
+            if (size > bb.remaining()) {
+                throw new BufferUnderflowException();
+            }
+            switch (type.getEntryType()) {
+                case INDIRECT -> {
+                    int itemct = type.poolct();
+                    assert itemct <= 2;
+                    for (int j = 0; j < itemct; ++j) {
+                        operands[2*i + j] = Short.toUnsignedInt(bb.getShort(offset + 2*j));
+                    }
+                }
+                case BOOTSTRAP -> {
+                    operands[2*i] = Short.toUnsignedInt(bb.getShort(offset));
+                    operands[2*i + 1] = Short.toUnsignedInt(bb.getShort(offset + 2));
+                }
+                case HANDLE -> {
+                    operands[2*i] = Byte.toUnsignedInt(bb.get(offset));
+                    operands[2*i + 1] = Short.toUnsignedInt(bb.getShort(offset + 1));
+                }
+                default -> {}
+            }
+            bb.position(offset + size);
             if (type.usesTwoSlots()) {
                 ++i;
             }
         }
-        return new ConstantPool(entries, jvmversion);
+        return new ConstantPool(bb, tags, offsets, operands, ctx);
     }
 
     public ConstantPoolType getType(int index) {
-        return getEntry(index).getType();
+        checkIndex(index);
+        usedIndex(index);
+        return typeAt(index);
     }
     
     public Object getValue(int index) {
@@ -77,21 +142,45 @@ public class ConstantPool {
     }
     
     public CPEntry getEntry(int index) {
-        if (index < 1 || index >= entries.length) {
+        checkIndex(index);
+        usedIndex(index);
+        return entryAt(index);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 1 || index >= tags.length) {
             // "CP index %d is not in [1,%d]"
-            throw new LogIllegalArgumentException(M520, index, entries.length - 1);
+            throw new LogIllegalArgumentException(M520, index, tags.length - 1);
         }
-        CPEntry result = entries[index];
-        if (result == null) {
-            CPEntry previous = entries[index - 1]; 
-            if (previous != null && previous.getType().usesTwoSlots()) {
+        if (tags[index] == 0) {
+            int previous = index - 1;
+            if (tags[previous] != 0 && typeAt(previous).usesTwoSlots()) {
                 // "CPIndex %d is invalid as points to middle of %s entry"
-                throw new LogIllegalArgumentException(M522, index , previous.getType());
+                throw new LogIllegalArgumentException(M522, index , typeAt(previous));
             } else {
                 throw new AssertionError();
             }
         }
-        usedIndex(index);
+    }
+
+    private boolean isEntry(int index) {
+        return tags[index] != 0;
+    }
+
+    private ConstantPoolType typeAt(int index) {
+        return CPEntry.typeOf(Byte.toUnsignedInt(tags[index]));
+    }
+
+    private int operand(int index, int item) {
+        return operands[2*index + item];
+    }
+
+    private CPEntry entryAt(int index) {
+        CPEntry result = entries[index];
+        if (result == null) {
+            result = CPEntry.fromConstantPool(bb, offsets[index], typeAt(index));
+            entries[index] = result;
+        }
         return result;
     }
 
@@ -104,46 +193,47 @@ public class ConstantPool {
     }
     
     private void checkPoolType (int base,int index, ConstantPoolType expected) {
-        checkPoolType(base,index,EnumSet.of(expected));
+        ConstantPoolType actual = getType(index);
+        if (actual != expected){
+            // "entry %d (%s) refers to index %d (%s) but expected to be in %s"
+            throw new LogIllegalArgumentException(M514, base,getType(base), index, actual, EnumSet.of(expected));
+        }
     }
     
     public void check() {
-        for (int i = 1; i < entries.length; ++i) {
-            CPEntry cp = entries[i];
-            if (cp == null) {
+        for (int i = 1; i < tags.length; ++i) {
+            if (!isEntry(i)) {
                 continue;
             }
-            ConstantPoolType cptype = cp.getType();
+            ConstantPoolType cptype = typeAt(i);
             ConstantPoolType.EntryType et = cptype.getEntryType();
-            Object value = cp.getValue();
             switch(et) {
                 case INDIRECT -> {
-                    int[] indices = (int[])value;
-                    ConstantPoolType[] types = cp.getType().getPool();
-                    if (indices.length != types.length) {
+                    int itemct = cptype.poolct();
+                    ConstantPoolType[] types = cptype.getPool();
+                    if (itemct != types.length) {
                         // "number of cp entries (%d) for entry %d does not equal number required for type (5d)"
-                        throw new LogIllegalArgumentException(M515, indices.length, i, types.length);
+                        throw new LogIllegalArgumentException(M515, itemct, i, types.length);
                     }
-                    for (int j = 0; j < indices.length; ++j) {
-                        checkPoolType(i,indices[j],types[j]);
+                    for (int j = 0; j < itemct; ++j) {
+                        checkPoolType(i,operand(i, j),types[j]);
                     }
                 }
                 case HANDLE -> {
-                    int[] indices = (int[])value;
-                    int tag = indices[0];
-                    int index = indices[1];
+                    int tag = operand(i, 0);
+                    int index = operand(i, 1);
                     HandleType ht = HandleType.getInstance(tag);
                     checkPoolType(i,index,ht.getValidCPT(jvmVersion));
                 }
                 case BOOTSTRAP -> {
-                    int[] indices = (int[])value;
-                    ConstantPoolType[] types = cp.getType().getPool();
-                    int bootstrap = indices[0];
+                    ConstantPoolType[] types = cptype.getPool();
+                    int bootstrap = operand(i, 0);
                     usedboot.set(bootstrap);
-                    checkPoolType(i,indices[1],types[0]);
+                    checkPoolType(i,operand(i, 1),types[0]);
                 }
                 case LONG, DOUBLE -> ++i;
-                case UTF8, INTEGER, FLOAT -> {}
+                case UTF8 -> CPEntry.checkCPUTF8(bb, offsets[i], ctx);
+                case INTEGER, FLOAT -> {}
                 default -> {
                     throw new LogUnexpectedEnumValueException(et);
                 }
@@ -155,21 +245,23 @@ public class ConstantPool {
         used.clear();
     }
     
+    // the entries an entry refers to are marked with it, so a used entry needs no further walk
     private void usedIndex(int cpindex) {
-        CPEntry cp = entries[cpindex];
+        if (used.get(cpindex)) {
+            return;
+        }
         used.set(cpindex);
-        ConstantPoolType.EntryType et = cp.getType().getEntryType();
-        Object value = cp.getValue();
+        ConstantPoolType type = typeAt(cpindex);
+        ConstantPoolType.EntryType et = type.getEntryType();
         switch(et) {
             case INDIRECT -> {
-                int[] indices = (int[])value;
-                for (int j = 0; j < indices.length; ++j) {
-                    usedIndex(indices[j]);
+                int itemct = type.poolct();
+                for (int j = 0; j < itemct; ++j) {
+                    usedIndex(operand(cpindex, j));
                 }
             }
             case HANDLE, BOOTSTRAP -> {
-                int[] indices = (int[])value;
-                int index = indices[1];
+                int index = operand(cpindex, 1);
                 usedIndex(index);
             }
             case UTF8, INTEGER, FLOAT, LONG, DOUBLE -> {}
@@ -182,19 +274,19 @@ public class ConstantPool {
     public void checkUsed() {
         BitSet saved = (BitSet)used.clone();
         int ct = 0;
-        for (int i = 1; i < entries.length; ++i) {
-            CPEntry cpentry = entries[i];
-            if (cpentry != null && !saved.get(i)) {
-                if (OPTION(GlobalOption.DETAIL) || OPTION(GlobalOption.DETAIL_CONSTANT_POOL)) {
+        for (int i = 1; i < tags.length; ++i) {
+            if (isEntry(i) && !saved.get(i)) {
+                if (ctx.option(GlobalOption.DETAIL) || ctx.option(GlobalOption.DETAIL_CONSTANT_POOL)) {
+                    CPEntry cpentry = entryAt(i);
                     // "Constant Pool Entry %d is not used: type = %s value = %s"
-                    LOG(M530, i, cpentry.typeString(), StringUtil.printable(stringValue(cpentry)));
+                    ctx.log(M530, i, cpentry.typeString(), StringUtil.printable(stringValue(cpentry)));
                 }
                 ++ct;
             }
         }
         if (ct != 0) {
             // "%d constant pool entries are not used"
-            LOG(M529, ct);
+            ctx.log(M529, ct);
         }
     }
     
@@ -246,11 +338,11 @@ public class ConstantPool {
         ptr.println("CONSTANT POOL ENTRIES");
         IndentPrinter entryptr = ptr.shift();
         Map<String,Integer> strmap = new HashMap<>();
-        for (int i = 0; i < entries.length; ++i) {
-            CPEntry cp = entries[i];
-            if (cp == null) {
+        for (int i = 1; i < tags.length; ++i) {
+            if (!isEntry(i)) {
                 continue;
             }
+            CPEntry cp = entryAt(i);
             String cpstr = stringValue(cp);
             ConstantPoolType cpt = cp.getType();
             if (cpt == ConstantPoolType.CONSTANT_String) {
@@ -277,12 +369,12 @@ public class ConstantPool {
         }
         if (errct != 0) {
             // "%d bootstraps are not used"
-            LOG(M535, errct);
+            ctx.log(M535, errct);
         }
         int maxboot = usedboot.length() - 1;
         if (maxboot >= 0 && bootct <= maxboot) {
             // "maximum bootcp used by constant pool (%d)  is greater than supplied in attribute (size = %d)"
-            LOG(M505, maxboot, bootct);
+            ctx.log(M505, maxboot, bootct);
         }
     }
     
@@ -298,6 +390,14 @@ public class ConstantPool {
     }
 
     private void printBoot(IndentPrinter bootptr, int index) {
+        bootptr.printLazily(ptr -> printBootLines(ptr, index));
+        if (!usedboot.get(index)) {
+            // "BootStrap %d is not used"
+            ctx.log(M536, index);
+        }
+    }
+
+    private void printBootLines(IndentPrinter bootptr, int index) {
         CPEntry[] boots = bootstraps.get(index);
         IndentPrinter methodptr = bootptr.shift();
         IndentPrinter argptr = methodptr.shift();
@@ -308,10 +408,6 @@ public class ConstantPool {
             CPEntry argcp = boots[k];
             argptr.println("%d %-24s %s",k - 1,argcp.typeString(),stringValue(argcp));
         }
-        if (!usedboot.get(index)) {
-            // "BootStrap %d is not used"
-            LOG(M536, index);
-        }
     }
     
 }
@@ -0,0 +1,34 @@
+package com.github.david32768.jynxstructure;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.github.david32768.jynxstructure.ConstantPoolParse")
+@Label("Constant Pool Parse")
+@Category("JynxStructure")
+final class ConstantPoolParseEvent extends Event {
+
+    @Label("Class")
+    String className;
+
+    @Label("Entries")
+    int entries;
+
+    @Label("Size")
+    @DataAmount
+    long size;
+
+    // committed after the pool is read as the class name follows it
+    void commit(String klass, int entryct, long bytes) {
+        if (shouldCommit()) {
+            className = klass;
+            entries = entryct;
+            size = bytes;
+            commit();
+        }
+    }
+
+}
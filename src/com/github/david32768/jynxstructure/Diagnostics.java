@@ -0,0 +1,24 @@
+package com.github.david32768.jynxstructure;
+
+import com.github.david32768.jynxfree.jvm.Context;
+import com.github.david32768.jynxfree.jvm.JvmVersion;
+import com.github.david32768.jynxfree.jynx.JynxMessage;
+
+public interface Diagnostics {
+
+    // for JynxFree code that reads the version from Global
+    default void setJvmVersion(JvmVersion jvmversion) {}
+
+    void setContext(Context context, boolean attribute, int offset);
+
+    void log(JynxMessage msg, Object... objs);
+
+    void log(Exception ex);
+
+    int errors();
+
+    int warnings();
+
+    boolean end(String classname);
+
+}
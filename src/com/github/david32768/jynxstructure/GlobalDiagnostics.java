@@ -0,0 +1,71 @@
+package com.github.david32768.jynxstructure;
+
+import static com.github.david32768.jynxfree.jynx.Global.END_MESSAGES;
+import static com.github.david32768.jynxfree.jynx.Global.LOG;
+import static com.github.david32768.jynxfree.jynx.Global.LOGGER;
+
+import com.github.david32768.jynxfree.jvm.Context;
+import com.github.david32768.jynxfree.jvm.JvmVersion;
+import com.github.david32768.jynxfree.jynx.Global;
+import com.github.david32768.jynxfree.jynx.JynxMessage;
+import com.github.david32768.jynxfree.jynx.LogMsgType;
+
+// single class run; messages are handled by Global (JynxFree) as before
+public class GlobalDiagnostics implements Diagnostics {
+
+    private final LogContext context = new LogContext();
+
+    private int errors;
+    private int warnings;
+
+    public GlobalDiagnostics() {}
+
+    @Override
+    public void setJvmVersion(JvmVersion jvmversion) {
+        Global.setJvmVersion(jvmversion);
+    }
+
+    // the logger line is only set when a message is logged
+    @Override
+    public void setContext(Context context, boolean attribute, int offset) {
+        this.context.set(context, attribute, offset);
+    }
+
+    @Override
+    public void log(JynxMessage msg, Object... objs) {
+        count(msg.getLogtype());
+        LOGGER().setLine(context.line());
+        LOG(msg, objs);
+    }
+
+    @Override
+    public void log(Exception ex) {
+        ++errors;
+        LOGGER().setLine(context.line());
+        LOG(ex);
+    }
+
+    private void count(LogMsgType logtype) {
+        switch (logtype) {
+            case ERROR -> ++errors;
+            case WARNING -> ++warnings;
+            default -> {}
+        }
+    }
+
+    @Override
+    public int errors() {
+        return errors;
+    }
+
+    @Override
+    public int warnings() {
+        return warnings;
+    }
+
+    @Override
+    public boolean end(String classname) {
+        return END_MESSAGES(classname);
+    }
+
+}
@@ -1,88 +1,248 @@
 package com.github.david32768.jynxstructure;
 
 import java.io.PrintWriter;
-
-import static com.github.david32768.jynxfree.jynx.Global.OPTION;
-import com.github.david32768.jynxfree.jynx.GlobalOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Formatter;
+import java.util.List;
+import java.util.function.Consumer;
 
 public class IndentPrinter {
 
-    private final PrintWriter pw;
-    private final String indent;
+    private final Output output;
+    private final int level;
+    private IndentPrinter shifted;
 
     public IndentPrinter(PrintWriter pw) {
-        this.pw = pw;
-        this.indent = "";
+        this(pw, false);
+    }
+
+    public IndentPrinter(PrintWriter pw, boolean omitComment) {
+        this(new Output(pw, omitComment, false), 0);
     }
 
-    private IndentPrinter(PrintWriter pw, String indent) {
-        this.pw = pw;
-        this.indent = indent;
-        if (indent.length() > MAXIMUM_LINE_LENGTH/2) {
+    private IndentPrinter(Output output, int level) {
+        this.output = output;
+        this.level = level;
+        if (level > MAXIMUM_LEVEL) {
             throw new IllegalArgumentException();
         }
     }
 
     private static final String INDENT_SHIFT = "  ";
-    private static final String CONTINUATION = "";
     private static final int MAXIMUM_LINE_LENGTH = 80;
     private static final int MAXIMUM_SEARCH_LENGTH = 20;
+    private static final int MAXIMUM_LEVEL = MAXIMUM_LINE_LENGTH/2/INDENT_SHIFT.length();
     private static final String NEWLINE = "\n";
     private static final String SPLIT_CHARS = " );/"; // in preferred order for splitting
+    private static final String COMMENT = " ; ";
+    private static final int INITIAL_LINE_SIZE = 256;
+    
+    // formats nothing
+    public static IndentPrinter nullPrinter() {
+        return new IndentPrinter(new Output(null, false, false), 0);
+    }
+
+    // lines are kept unformatted until replayed
+    public static IndentPrinter recorder(PrintWriter pw, boolean omitComment) {
+        return new IndentPrinter(new Output(pw, omitComment, true), 0);
+    }
     
     public IndentPrinter shift() {
-        return new IndentPrinter(pw, indent + INDENT_SHIFT);
+        if (shifted == null) {
+            shifted = new IndentPrinter(output, level + 1);
+        }
+        return shifted;
     }
     
-    private int preferredSplit(String line, String splits, int max, int search) {
-        assert line.length() > max && search > 0 && max/4 >= search;
-        int last = splits.length();
-        int split = max - 1;
-        for (int i = split; i > max - search; --i) {
-            char c = line.charAt(i);
-            int index = splits.indexOf(c);
-            if (index >= 0 && index < last) {
-                last = index;
-                split = i;
-                if (index == 0) {
+    // false if nothing is printed or recorded, so values need not be found
+    public boolean prints() {
+        return output.pw != null;
+    }
+
+    public void println(String format, Object... values) {
+        output.println(level, format, values);
+    }
+
+    // lines whose values are only found when printed; if recording, when replayed
+    public void printLazily(Consumer<IndentPrinter> lines) {
+        output.printLazily(this, lines);
+    }
+
+    public void flush() {
+        output.flush();
+    }
+
+    // lines recorded so far; zero if not a recorder
+    public int mark() {
+        return output.mark();
+    }
+
+    // discards lines recorded after mark
+    public void reset(int mark) {
+        output.reset(mark);
+    }
+
+    // prints and discards recorded lines
+    public void replay() {
+        output.replay();
+    }
+
+    private sealed interface Recorded permits Line, LazyLines {}
+
+    private record Line(int level, String format, Object[] values) implements Recorded {}
+
+    private record LazyLines(IndentPrinter ptr, Consumer<IndentPrinter> lines) implements Recorded {}
+
+    // shared by an IndentPrinter and its shifts
+    private static final class Output {
+
+        private final PrintWriter pw;
+        private final boolean omitComment;
+        private final StringBuilder text;
+        private final Formatter formatter;
+        private final char[] indents;
+        private final List<Recorded> recorded; // null if printed immediately
+        private boolean replaying;
+        private char[] line;
+
+        private Output(PrintWriter pw, boolean omitComment, boolean record) {
+            this.pw = pw;
+            this.omitComment = omitComment;
+            this.text = new StringBuilder(INITIAL_LINE_SIZE);
+            this.formatter = new Formatter(text);
+            this.indents = INDENT_SHIFT.repeat(MAXIMUM_LEVEL + 1).toCharArray();
+            this.recorded = record? new ArrayList<>(): null;
+            this.line = new char[INITIAL_LINE_SIZE];
+        }
+
+        private void println(int level, String format, Object[] values) {
+            if (pw == null) {
+                return;
+            }
+            if (recorded != null && !replaying) {
+                recorded.add(new Line(level, format, values));
+                return;
+            }
+            print(level, format, values);
+        }
+
+        private void printLazily(IndentPrinter ptr, Consumer<IndentPrinter> lines) {
+            if (pw == null) {
+                return;
+            }
+            if (recorded != null && !replaying) {
+                recorded.add(new LazyLines(ptr, lines));
+                return;
+            }
+            lines.accept(ptr);
+        }
+
+        private int mark() {
+            return recorded == null? 0: recorded.size();
+        }
+
+        private void reset(int mark) {
+            if (recorded != null) {
+                recorded.subList(mark, recorded.size()).clear();
+            }
+        }
+
+        private void replay() {
+            if (recorded == null) {
+                return;
+            }
+            replaying = true;
+            try {
+                for (Recorded rec : recorded) {
+                    switch (rec) {
+                        case Line recline -> print(recline.level(), recline.format(), recline.values());
+                        case LazyLines lazy -> lazy.lines().accept(lazy.ptr());
+                    }
+                }
+            } finally {
+                replaying = false;
+                recorded.clear();
+            }
+        }
+
+        private void print(int level, String format, Object[] values) {
+            text.setLength(0);
+            formatter.format(format, values);
+            int end = text.length();
+            while (end > 0 && text.charAt(end - 1) == NEWLINE.charAt(0)) {
+                --end;
+            }
+            if (end == 0) {
+                return;
+            }
+            int start = 0;
+            int linelevel = level;
+            while (true) {
+                int nl = text.indexOf(NEWLINE, start);
+                if (nl < 0 || nl > end) {
+                    nl = end;
+                }
+                printLine(linelevel, start, nl);
+                if (nl == end) {
                     break;
                 }
+                start = nl + 1;
+                linelevel = level + 1;
             }
         }
-        return split + 1;
-    }
-    
-    public void println(String format, Object... values) {
-        String multiline = String.format(format,values) + NEWLINE;
-        String[] lines = multiline.split(NEWLINE);
-        boolean first = true;
-        for (String line:lines) {
-            String x; 
-            if (first) {
-                first = false;
-                x = indent;
-            } else {
-                x = INDENT_SHIFT + indent;
-            }
-            if (OPTION(GlobalOption.OMIT_COMMENT)) {
-                int index = line.indexOf(" ; ");
-                if (index >= 0) {
-                    line = line.substring(0, index);
+
+        private void printLine(int level, int start, int end) {
+            if (omitComment) {
+                int index = text.indexOf(COMMENT, start);
+                if (index >= 0 && index < end) {
+                    end = index;
                 }
             }
-            line = x + line;
-            while(line.length() > MAXIMUM_LINE_LENGTH) {
-                int split = preferredSplit(line, SPLIT_CHARS, MAXIMUM_LINE_LENGTH, MAXIMUM_SEARCH_LENGTH);
-                String head = line.substring(0,split);
-                String tail = line.substring(split);
-                pw.println(head);
-                line = CONTINUATION + tail;
+            int indent = level * INDENT_SHIFT.length();
+            int length = indent + end - start;
+            if (length > line.length) {
+                line = Arrays.copyOf(line, Math.max(length, 2 * line.length));
+            }
+            System.arraycopy(indents, 0, line, 0, indent);
+            text.getChars(start, end, line, indent);
+            int pos = 0;
+            while (length - pos > MAXIMUM_LINE_LENGTH) {
+                int split = preferredSplit(pos, SPLIT_CHARS, MAXIMUM_LINE_LENGTH, MAXIMUM_SEARCH_LENGTH);
+                pw.write(line, pos, split - pos);
+                pw.println();
+                pos = split;
             }
-            if (!line.equals(CONTINUATION)) {
-                pw.println(line);
+            if (length > pos) {
+                pw.write(line, pos, length - pos);
+                pw.println();
             }
         }
-        pw.flush();
+
+        private int preferredSplit(int pos, String splits, int max, int search) {
+            assert search > 0 && max/4 >= search;
+            int last = splits.length();
+            int split = pos + max - 1;
+            for (int i = split; i > pos + max - search; --i) {
+                char c = line[i];
+                int index = splits.indexOf(c);
+                if (index >= 0 && index < last) {
+                    last = index;
+                    split = i;
+                    if (index == 0) {
+                        break;
+                    }
+                }
+            }
+            return split + 1;
+        }
+
+        private void flush() {
+            if (pw != null) {
+                pw.flush();
+            }
+        }
+
     }
     
 }
@@ -4,8 +4,6 @@ import java.lang.classfile.Opcode;
 
 import java.nio.ByteBuffer;
 
-import static com.github.david32768.jynxfree.jynx.Global.LOG;
-import static com.github.david32768.jynxfree.jynx.Global.OPTION;
 import static com.github.david32768.jynxstructure.my.Message.M516;
 import static com.github.david32768.jynxstructure.my.Message.M533;
 
@@ -15,20 +13,30 @@ import com.github.david32768.jynxfree.jvm.NumType;
 import com.github.david32768.jynxfree.jvm.OpArg;
 import com.github.david32768.jynxfree.jvm.OpPart;
 import com.github.david32768.jynxfree.jvm.StandardAttribute;
-import com.github.david32768.jynxfree.jynx.GlobalOption;
 import com.github.david32768.jynxfree.jynx.LogIllegalArgumentException;
 import com.github.david32768.jynxfree.jynx.LogUnexpectedEnumValueException;
 import com.github.david32768.jynxfree.jynx.StringUtil;
 
 public class InstBuffer extends AbstractCodeBuffer {
     
+    // codesz bytes from position of bb
     public InstBuffer(ConstantPool pool, ByteBuffer bb, int maxlocal, int codesz) {
-        super(pool, bb, maxlocal, codesz);
+        this(pool, bb, bb.position(), bb.position() + codesz, maxlocal);
     }
 
-    public CodeBuffer codeBuffer(ByteBuffer codebb) {
+    public InstBuffer(ConstantPool pool, ByteBuffer bb, int position, int limit, int maxlocal) {
+        super(pool, bb, position, limit, maxlocal);
+    }
+
+    protected InstBuffer(ConstantPool pool, ByteBuffer bb, int position, int limit, int maxlocal,
+            CodeLabels labels) {
+        super(pool, bb, position, limit, StandardAttribute.Code.toString(), maxlocal, labels);
+    }
+
+    // rest of Code attribute after the instructions
+    public CodeBuffer codeBuffer(int position, int limit) {
         labels.checkLabels();
-        return new CodeBuffer(pool, codebb, StandardAttribute.Code.toString(), maxlocal, labels);
+        return new CodeBuffer(pool, bb, position, limit, maxlocal, labels);
     }
     
     
@@ -51,6 +59,8 @@ public class InstBuffer extends AbstractCodeBuffer {
     }
     
     public void checkInsn(IndentPrinter ptr) {
+        boolean print = classContext().detail();
+        StructureVisitor visitor = classContext().visitor();
         int start = position();
         while(hasRemaining()) {
             int instoff = position() - start;
@@ -69,11 +79,12 @@ public class InstBuffer extends AbstractCodeBuffer {
                 case NEW -> labels.setNewInst(instoff);
             }
             OpArg arg = OpArg.of(op);
-            boolean print = OPTION(GlobalOption.DETAIL) || OPTION(GlobalOption.DETAIL_INSTRUCTIONS);
+            visitor.visitInstruction(instoff, op);
             switch(arg) {
                 case arg_switch -> {
                     align4(instoff + 1);
                     int deflab = nextBranchLabel(instoff);
+                    visitor.visitOperand(OpPart.LABEL, deflab);
                     if (print) {
                         ptr.println("%5d:  %s default @%d .array", instoff, op.name().toLowerCase(), deflab);
                     }
@@ -82,11 +93,12 @@ public class InstBuffer extends AbstractCodeBuffer {
                     long high = lookup? nextSize(): nextInt();
                     if (!lookup && low > high) {
                         // "low %d must be less than or equal to high %d"
-                        LOG(M516,low,high);
+                        classContext().log(M516,low,high);
                     }
                     for (long i = low; i <= high; ++i) {
                         int value = lookup? nextInt(): (int)i;
                         int brlab = nextBranchLabel(instoff);
+                        visitor.visitSwitchCase(value, brlab);
                         if (print) {
                             ptr.println("             %d -> @%d", value, brlab);
                         }
@@ -96,9 +108,18 @@ public class InstBuffer extends AbstractCodeBuffer {
                     }
                 }
                 default -> {
-                    String extra = extra(op, arg, instoff);
+                    OpPart[] parts = arg.getParts();
+                    int[] values = print? new int[parts.length]: null;
+                    for (int i = 0; i < parts.length; ++i) {
+                        OpPart fmt = parts[i];
+                        int value = operand(op, arg, fmt, instoff);
+                        visitor.visitOperand(fmt, value);
+                        if (print) {
+                            values[i] = value;
+                        }
+                    }
                     if (print) {
-                        ptr.println("%5d:  %s%s", instoff, op.name().toLowerCase(), extra);
+                        ptr.println("%5d:  %s", instoff, new Instruction(this, op, parts, values));
                     }
                     assert start + instoff + op.sizeIfFixed() == position();
                 }
@@ -106,85 +127,87 @@ public class InstBuffer extends AbstractCodeBuffer {
         }
     }
     
-    private String extra(Opcode op, OpArg arg, int instoff) {
-        StringBuilder sb = new StringBuilder();
-        for (OpPart fmt:arg.getParts()) {
-            String extra = switch(fmt) {
-                case CP -> {
-                    CPEntry cp;
-                    if (op == Opcode.LDC) {
-                        cp = nextCPEntryByte();
-                    } else {
-                        cp = nextCPEntry();
-                    }
-                    extra = stringValue(cp);
-                    ConstantPoolType cpt = cp.getType();
-                    if (cpt == ConstantPoolType.CONSTANT_String) {
-                        extra = StringUtil.quoteEscape(extra);
-                    }
-                    arg.checkCPType(cpt);
-                    yield extra;
-                }
-                case LABEL -> {
-                    int jmplab = Opcodes.isWide(op)?
-                            nextBranchLabel(instoff):
-                            nextIfLabel(instoff);
-                    yield "@" + Integer.toString(jmplab);
-                }
-                case VAR -> {
-                    int var;
-                    if (Opcodes.isImmediate(op)) {
-                        var = Opcodes.numericSuffix(op);
-                    } else if (Opcodes.isWide(op)) {
-                        var = nextUnsignedShort();
-                    } else {
-                        var = nextUnsignedByte();
-                    }
-                    checkLocalVar(var);
-                    yield Opcodes.isImmediate(op)? "": Integer.toString(var);
-                }
-                case INCR -> {
-                    int incr;
-                    if (Opcodes.isWide(op)) {
-                        incr = nextShort();
-                    } else {
-                        incr = nextByte();
-                    }
-                    yield Integer.toString(incr);
+    private int operand(Opcode op, OpArg arg, OpPart fmt, int instoff) {
+        return switch(fmt) {
+            case CP -> {
+                int cpindex;
+                if (op == Opcode.LDC) {
+                    cpindex = nextUnsignedByte();
+                } else {
+                    cpindex = nextUnsignedShort();
                 }
-                case BYTE -> {
-                    int b = nextByte();
-                    yield Integer.toString(b);
-                }
-                case SHORT -> {
-                    int s = nextShort();
-                    yield Integer.toString(s);
+                arg.checkCPType(pool.getType(cpindex));
+                yield cpindex;
+            }
+            case LABEL -> Opcodes.isWide(op)?
+                    nextBranchLabel(instoff):
+                    nextIfLabel(instoff);
+            case VAR -> {
+                int var;
+                if (Opcodes.isImmediate(op)) {
+                    var = Opcodes.numericSuffix(op);
+                } else if (Opcodes.isWide(op)) {
+                    var = nextUnsignedShort();
+                } else {
+                    var = nextUnsignedByte();
                 }
-                case TYPE -> {
-                    int t = nextUnsignedByte();
-                    NumType nt = NumType.getInstance(t);
-                    yield nt.externalName();
+                checkLocalVar(var);
+                yield var;
+            }
+            case INCR -> Opcodes.isWide(op)? nextShort(): nextByte();
+            case BYTE -> nextByte();
+            case SHORT -> nextShort();
+            case TYPE -> {
+                int t = nextUnsignedByte();
+                NumType.getInstance(t);
+                yield t;
+            }
+            case UBYTE -> nextUnsignedByte();
+            case ZERO -> {
+                int z = nextByte();
+                if (z != 0) {
+                    // "expected zero byte in %s is %d"
+                    throw new LogIllegalArgumentException(M533, op);
                 }
-                case UBYTE -> {
-                    int u = nextUnsignedByte();
-                    yield Integer.toString(u);
+                yield z;
+            }
+            case null -> throw new AssertionError();
+            default -> throw new LogUnexpectedEnumValueException(fmt);
+        };
+    }
+
+    private String extra(Opcode op, OpPart fmt, int value) {
+        return switch(fmt) {
+            case CP -> {
+                CPEntry cp = pool.getEntry(value);
+                String extra = stringValue(cp);
+                if (cp.getType() == ConstantPoolType.CONSTANT_String) {
+                    extra = StringUtil.quoteEscape(extra);
                 }
-                case ZERO -> {
-                    int z = nextByte();
-                    if (z != 0) {
-                        // "expected zero byte in %s is %d"
-                        throw new LogIllegalArgumentException(M533, op);
-                    }
-                    yield Integer.toString(z);
+                yield extra;
+            }
+            case LABEL -> "@" + Integer.toString(value);
+            case VAR -> Opcodes.isImmediate(op)? "": Integer.toString(value);
+            case TYPE -> NumType.getInstance(value).externalName();
+            default -> Integer.toString(value);
+        };
+    }
+
+    // operands are only formatted when printed
+    private record Instruction(InstBuffer buffer, Opcode op, OpPart[] parts, int[] values) {
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(op.name().toLowerCase());
+            for (int i = 0; i < parts.length; ++i) {
+                String extra = buffer.extra(op, parts[i], values[i]);
+                if (!extra.isEmpty()) {
+                    sb.append(' ').append(extra);
                 }
-                case null -> throw new AssertionError();
-                default -> throw new LogUnexpectedEnumValueException(fmt);
-            };
-            if (!extra.isEmpty()) {
-                sb.append(' ').append(extra);
             }
+            return sb.toString();
         }
-        return sb.toString();
+
     }
     
 }
@@ -0,0 +1,25 @@
+package com.github.david32768.jynxstructure;
+
+import com.github.david32768.jynxfree.jvm.Context;
+
+// set for every member and attribute but only formatted when a message is logged
+final class LogContext {
+
+    private Context context; // null if not set
+    private boolean attribute;
+    private int offset;
+
+    void set(Context context, boolean attribute, int offset) {
+        this.context = context;
+        this.attribute = attribute;
+        this.offset = offset;
+    }
+
+    String line() {
+        if (context == null) {
+            return "";
+        }
+        return String.format("Context %s%s: start = %#x", context, attribute? " Attribute": "", offset);
+    }
+
+}
@@ -7,6 +7,8 @@ import com.github.david32768.jynxfree.jynx.MainOptionService;
 
 public class MainStructure implements MainOptionService {
 
+    public MainStructure() {}
+
     @Override
     public MainOption main() {
         return MainOption.STRUCTURE;
@@ -19,6 +21,9 @@ public class MainStructure implements MainOptionService {
     
     @Override
     public boolean call(PrintWriter pw, String fname) {
+        if (BatchStructure.isBatch(fname)) {
+            return BatchStructure.check(pw, BatchStructure.args(fname));
+        }
         return Structure.printClassStructure(fname,pw);
     }
         
@@ -0,0 +1,314 @@
+package com.github.david32768.jynxstructure;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+// zip, jar or jmod mapped into memory; class bytes are read in place or inflated from the mapping
+public class MappedArchive implements Closeable {
+
+    private static final int EOCD_SIG = 0x06054b50;
+    private static final int EOCD_SIZE = 22;
+    private static final int MAX_COMMENT = 0xffff;
+    private static final int CEN_SIG = 0x02014b50;
+    private static final int CEN_SIZE = 46;
+    private static final int LOC_SIG = 0x04034b50;
+    private static final int LOC_SIZE = 30;
+
+    private static final int STORED = 0;
+    private static final int DEFLATED = 8;
+    private static final int ENCRYPTED_FLAG = 0x1;
+
+    private static final int ZIP64_SHORT = 0xffff;
+    private static final long ZIP64_INT = 0xffffffffL;
+
+    private static final int INITIAL_INFLATE_SIZE = 1 << 16;
+    private static final int MAX_ENTRY_SIZE = Integer.MAX_VALUE - 8;
+    private static final int MAX_DEFLATE_RATIO = 1032;
+
+    private final String name; // path of archive, with entry names if nested
+    private final ByteBuffer map;
+    private final List<Entry> entries;
+    private final Queue<Inflation> inflations; // shared with nested archives; ended when closed
+
+    private MappedArchive(String name, ByteBuffer map, Queue<Inflation> inflations) {
+        this.name = name;
+        this.map = map;
+        this.entries = new ArrayList<>();
+        this.inflations = inflations;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public List<Entry> entries() {
+        return Collections.unmodifiableList(entries);
+    }
+
+    // empty if the archive cannot be mapped (too large, zip64 or spanned); unmapped when arena is closed
+    public static Optional<MappedArchive> open(Path path, Arena arena) throws IOException {
+        MemorySegment segment;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE || size < EOCD_SIZE) {
+                return Optional.empty();
+            }
+            segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, size, arena);
+        }
+        ByteBuffer map = segment.asByteBuffer().asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+        MappedArchive archive = new MappedArchive(path.toString(), map, new ConcurrentLinkedQueue<>());
+        return archive.readDirectory()? Optional.of(archive): Optional.empty();
+    }
+
+    // a stored archive entry is read in place; empty if compressed or cannot be mapped
+    public Optional<MappedArchive> nested(Entry entry) throws IOException {
+        if (entry.method() != STORED || entry.csize() < EOCD_SIZE) {
+            return Optional.empty();
+        }
+        ByteBuffer data = data(entry).order(ByteOrder.LITTLE_ENDIAN);
+        MappedArchive archive = new MappedArchive(entry.name(), data, inflations);
+        return archive.readDirectory()? Optional.of(archive): Optional.empty();
+    }
+
+    private int findEOCD() {
+        int last = map.limit() - EOCD_SIZE;
+        int first = Math.max(0, last - MAX_COMMENT);
+        for (int pos = last; pos >= first; --pos) {
+            if (map.getInt(pos) == EOCD_SIG) {
+                return pos;
+            }
+        }
+        return -1;
+    }
+
+    private boolean readDirectory() throws ZipException {
+        int eocd = findEOCD();
+        if (eocd < 0) {
+            throw new ZipException("end of central directory not found in " + name);
+        }
+        int disk = Short.toUnsignedInt(map.getShort(eocd + 4));
+        int cendisk = Short.toUnsignedInt(map.getShort(eocd + 6));
+        int total = Short.toUnsignedInt(map.getShort(eocd + 10));
+        long censize = Integer.toUnsignedLong(map.getInt(eocd + 12));
+        long cenoffset = Integer.toUnsignedLong(map.getInt(eocd + 16));
+        if (disk != 0 || cendisk != 0 || total == ZIP64_SHORT
+                || censize == ZIP64_INT || cenoffset == ZIP64_INT) {
+            return false;
+        }
+        // a jmod (and a self extracting archive) has bytes before the zip data
+        long prefix = eocd - censize - cenoffset;
+        if (prefix < 0) {
+            throw new ZipException("invalid central directory in " + name);
+        }
+        int pos = (int)(prefix + cenoffset);
+        for (int i = 0; i < total; ++i) {
+            if (pos + CEN_SIZE > eocd || map.getInt(pos) != CEN_SIG) {
+                throw new ZipException("invalid central directory entry " + i + " in " + name);
+            }
+            int flags = Short.toUnsignedInt(map.getShort(pos + 8));
+            int method = Short.toUnsignedInt(map.getShort(pos + 10));
+            long crc = Integer.toUnsignedLong(map.getInt(pos + 16));
+            long csize = Integer.toUnsignedLong(map.getInt(pos + 20));
+            long size = Integer.toUnsignedLong(map.getInt(pos + 24));
+            int namelen = Short.toUnsignedInt(map.getShort(pos + 28));
+            int extralen = Short.toUnsignedInt(map.getShort(pos + 30));
+            int commentlen = Short.toUnsignedInt(map.getShort(pos + 32));
+            long locoffset = Integer.toUnsignedLong(map.getInt(pos + 42));
+            if (csize == ZIP64_INT || size == ZIP64_INT || locoffset == ZIP64_INT) {
+                return false;
+            }
+            int next = pos + CEN_SIZE + namelen + extralen + commentlen;
+            if (next > eocd) {
+                throw new ZipException("invalid central directory entry " + i + " in " + name);
+            }
+            byte[] namebytes = new byte[namelen];
+            map.get(pos + CEN_SIZE, namebytes);
+            String name = new String(namebytes, StandardCharsets.UTF_8);
+            if ((flags & ENCRYPTED_FLAG) == 0) { // sizes and offset are checked when read
+                entries.add(new Entry(this, name, method, crc, csize, size, prefix + locoffset));
+            }
+            pos = next;
+        }
+        return true;
+    }
+
+    private ByteBuffer data(Entry entry) throws ZipException {
+        if (entry.locoffset + LOC_SIZE > map.limit() || map.getInt((int)entry.locoffset) != LOC_SIG) {
+            throw new ZipException("invalid local header for " + entry.name());
+        }
+        int loc = (int)entry.locoffset;
+        int namelen = Short.toUnsignedInt(map.getShort(loc + 26));
+        int extralen = Short.toUnsignedInt(map.getShort(loc + 28));
+        long start = (long)loc + LOC_SIZE + namelen + extralen;
+        if (start + entry.csize > map.limit()) {
+            throw new ZipException("entry data past end of archive for " + entry.name());
+        }
+        return map.slice((int)start, (int)entry.csize).order(ByteOrder.BIG_ENDIAN);
+    }
+
+    private ByteBuffer inflate(Entry entry, ByteBuffer compressed) throws ZipException {
+        Inflation inflation = inflations.poll();
+        if (inflation == null) {
+            inflation = new Inflation();
+        }
+        try {
+            return inflation.inflate(entry, compressed);
+        } finally {
+            inflations.add(inflation);
+        }
+    }
+
+    @Override
+    public void close() {
+        Inflation inflation;
+        while ((inflation = inflations.poll()) != null) {
+            inflation.inflater.end();
+        }
+    }
+
+    public record Entry(MappedArchive archive, String entryname, int method,
+            long crc, long csize, long size, long locoffset) implements ClassInput {
+
+        @Override
+        public String name() {
+            return archive.name + "!/" + entryname;
+        }
+
+        // inflated by a reader so that the workers only check
+        @Override
+        public boolean readBlocks() {
+            return method == DEFLATED;
+        }
+
+        @Override
+        public ByteBuffer read() throws IOException {
+            ByteBuffer data = archive.data(this);
+            return switch (method) {
+                case STORED -> data;
+                case DEFLATED -> archive.inflate(this, data);
+                default -> throw new ZipException("unsupported compression method " + method + " for " + name());
+            };
+        }
+
+        // streamed, for a compressed archive nested in this one
+        public InputStream open() throws IOException {
+            ByteBuffer data = archive.data(this);
+            return switch (method) {
+                case STORED -> new BufferInputStream(data);
+                case DEFLATED -> new EntryInputStream(data);
+                default -> throw new ZipException("unsupported compression method " + method + " for " + name());
+            };
+        }
+
+    }
+
+    private static final class BufferInputStream extends InputStream {
+
+        private final ByteBuffer data;
+
+        private BufferInputStream(ByteBuffer data) {
+            this.data = data;
+        }
+
+        @Override
+        public int read() {
+            return data.hasRemaining()? Byte.toUnsignedInt(data.get()): -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!data.hasRemaining()) {
+                return -1;
+            }
+            len = Math.min(len, data.remaining());
+            data.get(bytes, off, len);
+            return len;
+        }
+
+        @Override
+        public int available() {
+            return data.remaining();
+        }
+
+    }
+
+    private static final class EntryInputStream extends InflaterInputStream {
+
+        private EntryInputStream(ByteBuffer compressed) {
+            super(new BufferInputStream(compressed), new Inflater(true));
+        }
+
+        @Override
+        public void close() throws IOException {
+            super.close();
+            inf.end(); // not ended by super as not the default inflater
+        }
+
+    }
+
+    // used by one thread at a time; the inflated bytes are not reused
+    private static final class Inflation {
+
+        private final Inflater inflater;
+        private byte[] input;
+
+        private Inflation() {
+            this.inflater = new Inflater(true);
+            this.input = new byte[INITIAL_INFLATE_SIZE];
+        }
+
+        private ByteBuffer inflate(Entry entry, ByteBuffer compressed) throws ZipException {
+            int csize = compressed.remaining();
+            if (entry.size() > Math.min(MAX_ENTRY_SIZE, (long)csize * MAX_DEFLATE_RATIO)) {
+                throw new ZipException("invalid size " + entry.size() + " for " + entry.name());
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int)entry.size());
+            if (input.length < csize) {
+                input = new byte[Math.max(csize, 2 * input.length)];
+            }
+            // copied as an inflater cannot read a buffer of a shared arena
+            compressed.get(compressed.position(), input, 0, csize);
+            inflater.reset();
+            inflater.setInput(input, 0, csize);
+            try {
+                while (buffer.hasRemaining() && !inflater.finished()) {
+                    int ct = inflater.inflate(buffer);
+                    if (ct == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        break;
+                    }
+                }
+            } catch (DataFormatException ex) {
+                throw new ZipException(ex.getMessage() + " for " + entry.name());
+            }
+            if (buffer.hasRemaining()) {
+                throw new ZipException("inflated size " + buffer.position()
+                        + " is less than " + entry.size() + " for " + entry.name());
+            }
+            return buffer.flip().asReadOnlyBuffer();
+        }
+
+    }
+
+}
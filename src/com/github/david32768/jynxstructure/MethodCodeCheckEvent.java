@@ -0,0 +1,43 @@
+package com.github.david32768.jynxstructure;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.github.david32768.jynxstructure.MethodCodeCheck")
+@Label("Method Code Check")
+@Category("JynxStructure")
+final class MethodCodeCheckEvent extends Event {
+
+    @Label("Class")
+    String className;
+
+    @Label("Method")
+    String method;
+
+    @Label("Code Attribute Size")
+    @DataAmount
+    long size;
+
+    @Label("Instructions")
+    int instructions;
+
+    @Label("Errors")
+    int errors;
+
+    // method name and instructions are only found if recorded
+    void commit(String klass, CodeBuffer codebuff, int namecp, int typecp, long bytes, int errct) {
+        if (shouldCommit()) {
+            ConstantPool pool = codebuff.pool();
+            className = klass;
+            method = (String)pool.getValue(namecp) + pool.getValue(typecp);
+            size = bytes;
+            instructions = codebuff.instructions();
+            errors = errct;
+            commit();
+        }
+    }
+
+}
@@ -0,0 +1,240 @@
+package com.github.david32768.jynxstructure;
+
+import java.io.PrintWriter;
+
+import com.github.david32768.jynxfree.jvm.Context;
+import com.github.david32768.jynxfree.jynx.LogMsgType;
+
+// writes one json object per line as the class is walked; diagnostics are kept until their object is closed
+public class NdjsonVisitor implements StructureVisitor {
+
+    private final PrintWriter pw;
+    private final String klass;
+    private final boolean members;
+    private final StringBuilder diagnostics;
+    private final StringBuilder memberDiagnostics; // members mode only
+    private final StringBuilder text;
+
+    private ConstantPool pool;
+    private int access;
+    private int thiscp;
+    private int start;
+    private int length;
+    private boolean classOpen;
+    private String section; // current array of class object
+    private boolean memberOpen;
+    private boolean firstAttribute;
+
+    public NdjsonVisitor(PrintWriter pw, String klass, boolean members) {
+        this.pw = pw;
+        this.klass = klass;
+        this.members = members;
+        this.diagnostics = new StringBuilder();
+        this.memberDiagnostics = new StringBuilder();
+        this.text = new StringBuilder();
+    }
+
+    @Override
+    public void visitPool(ConstantPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public void visitClass(int access, int thiscp, int start, int length) {
+        this.access = access;
+        this.thiscp = thiscp;
+        this.start = start;
+        this.length = length;
+        if (!members) {
+            openClass();
+        }
+    }
+
+    @Override
+    public void visitField(int access, int namecp, int desccp, int start) {
+        openMember("field", "fields", access, namecp, desccp, start);
+    }
+
+    @Override
+    public void visitMethod(int access, int namecp, int desccp, int start) {
+        openMember("method", "methods", access, namecp, desccp, start);
+    }
+
+    @Override
+    public void visitMemberEnd(int length) {
+        closeMember(length);
+    }
+
+    @Override
+    public void visitAttribute(Context context, int namecp, int start, int length) {
+        boolean classlevel = context == Context.CLASS || context == Context.MODULE;
+        if (classlevel || !memberOpen) {
+            closeMember(-1);
+            openClass();
+            openSection("attributes");
+        } else if (firstAttribute) {
+            firstAttribute = false;
+        } else {
+            pw.print(',');
+        }
+        pw.print("{\"name\":");
+        string(cpString(namecp));
+        if (!classlevel) {
+            pw.print(",\"context\":");
+            string(context.name());
+        }
+        pw.print(",\"start\":");
+        pw.print(start);
+        pw.print(",\"length\":");
+        pw.print(length);
+        pw.print('}');
+    }
+
+    @Override
+    public void visitDiagnostic(LogMsgType type, String id, Object[] args, String message, String line) {
+        StringBuilder sb = members && memberOpen? memberDiagnostics: diagnostics;
+        if (!sb.isEmpty()) {
+            sb.append(',');
+        }
+        sb.append("{\"id\":");
+        string(sb, id);
+        sb.append(",\"type\":");
+        string(sb, type.name());
+        sb.append(",\"message\":");
+        string(sb, message);
+        sb.append(",\"args\":[");
+        for (int i = 0; i < args.length; ++i) {
+            if (i != 0) {
+                sb.append(',');
+            }
+            string(sb, String.valueOf(args[i]));
+        }
+        sb.append("],\"line\":");
+        string(sb, line);
+        sb.append('}');
+    }
+
+    public void finish(boolean ok) {
+        closeMember(-1);
+        openClass();
+        closeSection();
+        pw.print(",\"diagnostics\":[");
+        pw.print(diagnostics);
+        pw.print("],\"ok\":");
+        pw.print(ok);
+        pw.println('}');
+    }
+
+    private void openClass() {
+        if (classOpen) {
+            return;
+        }
+        classOpen = true;
+        pw.print("{\"class\":");
+        string(pool == null || thiscp == 0? klass: cpString(thiscp));
+        pw.print(",\"access\":");
+        pw.print(access);
+        pw.print(",\"start\":");
+        pw.print(start);
+        pw.print(",\"length\":");
+        pw.print(length);
+    }
+
+    private void openSection(String name) {
+        if (name.equals(section)) {
+            pw.print(',');
+            return;
+        }
+        closeSection();
+        section = name;
+        pw.print(",\"");
+        pw.print(name);
+        pw.print("\":[");
+    }
+
+    private void closeSection() {
+        if (section != null) {
+            pw.print(']');
+            section = null;
+        }
+    }
+
+    private void openMember(String kind, String sectionname, int access, int namecp, int desccp, int start) {
+        closeMember(-1);
+        if (members) {
+            pw.print("{\"class\":");
+            string(cpString(thiscp));
+            pw.print(",\"kind\":");
+            string(kind);
+            pw.print(',');
+        } else {
+            openSection(sectionname);
+            pw.print('{');
+        }
+        pw.print("\"name\":");
+        string(cpString(namecp));
+        pw.print(",\"descriptor\":");
+        string(cpString(desccp));
+        pw.print(",\"access\":");
+        pw.print(access);
+        pw.print(",\"start\":");
+        pw.print(start);
+        pw.print(",\"attributes\":[");
+        memberOpen = true;
+        firstAttribute = true;
+    }
+
+    // length is -1 if the member was not completed
+    private void closeMember(int length) {
+        if (!memberOpen) {
+            return;
+        }
+        memberOpen = false;
+        pw.print(']');
+        if (length >= 0) {
+            pw.print(",\"length\":");
+            pw.print(length);
+        }
+        if (members) {
+            pw.print(",\"diagnostics\":[");
+            pw.print(memberDiagnostics);
+            pw.println("]}");
+            memberDiagnostics.setLength(0);
+        } else {
+            pw.print('}');
+        }
+    }
+
+    private String cpString(int cpindex) {
+        return pool.stringValue(pool.getEntry(cpindex));
+    }
+
+    private void string(String str) {
+        text.setLength(0);
+        string(text, str);
+        pw.append(text);
+    }
+
+    private static void string(StringBuilder sb, String str) {
+        sb.append('"');
+        for (int i = 0; i < str.length(); ++i) {
+            char c = str.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int)c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        sb.append('"');
+    }
+
+}
@@ -0,0 +1,44 @@
+package com.github.david32768.jynxstructure;
+
+import java.io.PrintWriter;
+
+// texts of a batch are printed in slot order whatever order they are completed in; flushed when finished
+public class OrderedOutput {
+
+    private final PrintWriter pw;
+    private final String[] texts; // completed but not printed
+    private int next;
+
+    public OrderedOutput(PrintWriter pw, int slots) {
+        this.pw = pw;
+        this.texts = new String[slots];
+    }
+
+    public void print(int slot, String text) {
+        synchronized (pw) {
+            texts[slot] = text;
+            if (slot != next) {
+                return;
+            }
+            while (next < texts.length && texts[next] != null) {
+                pw.print(texts[next]);
+                texts[next] = null;
+                ++next;
+            }
+        }
+    }
+
+    // slots not completed, e.g. after an Error, are skipped
+    public void finish() {
+        synchronized (pw) {
+            for (; next < texts.length; ++next) {
+                if (texts[next] != null) {
+                    pw.print(texts[next]);
+                    texts[next] = null;
+                }
+            }
+            pw.flush();
+        }
+    }
+
+}
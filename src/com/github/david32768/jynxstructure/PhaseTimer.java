@@ -0,0 +1,150 @@
+package com.github.david32768.jynxstructure;
+
+import java.lang.management.ManagementFactory;
+
+import com.sun.management.ThreadMXBean;
+
+// wall, cpu and allocation of one class on one thread; time is charged to the innermost phase
+public class PhaseTimer {
+
+    public enum Phase {
+        CLASS, // not in any other phase
+        POOL_READ,
+        POOL_CHECK,
+        FIELDS,
+        METHODS,
+        CODE,
+        FRAMES,
+        BOOTSTRAPS,
+        USAGE,
+        ;
+    }
+
+    private static final ThreadMXBean THREADS = (ThreadMXBean)ManagementFactory.getThreadMXBean();
+    private static final int MAX_DEPTH = 8;
+
+    public static final PhaseTimer NONE = new PhaseTimer(false);
+
+    private final boolean enabled;
+    private final long[] wall;
+    private final long[] cpu;
+    private final long[] alloc;
+    private final Phase[] stack;
+
+    private int depth;
+    private Phase current;
+    private long lastwall;
+    private long lastcpu;
+    private long lastalloc;
+
+    private PhaseTimer(boolean enabled) {
+        this.enabled = enabled;
+        int phases = Phase.values().length;
+        this.wall = new long[phases];
+        this.cpu = new long[phases];
+        this.alloc = new long[phases];
+        this.stack = new Phase[MAX_DEPTH];
+    }
+
+    public static PhaseTimer start() {
+        PhaseTimer timer = new PhaseTimer(true);
+        timer.current = Phase.CLASS;
+        timer.lastwall = System.nanoTime();
+        timer.lastcpu = THREADS.getCurrentThreadCpuTime();
+        timer.lastalloc = THREADS.getCurrentThreadAllocatedBytes();
+        return timer;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void start(Phase phase) {
+        if (!enabled) {
+            return;
+        }
+        charge();
+        stack[depth++] = current;
+        current = phase;
+    }
+
+    // phases left by an exception are ended with their parent
+    public void end(Phase phase) {
+        if (!enabled) {
+            return;
+        }
+        charge();
+        while (depth > 0) {
+            Phase ended = current;
+            current = stack[--depth];
+            if (ended == phase) {
+                break;
+            }
+        }
+    }
+
+    public void finish() {
+        if (!enabled) {
+            return;
+        }
+        charge();
+        depth = 0;
+        current = Phase.CLASS;
+    }
+
+    private void charge() {
+        long nowwall = System.nanoTime();
+        long nowcpu = THREADS.getCurrentThreadCpuTime();
+        long nowalloc = THREADS.getCurrentThreadAllocatedBytes();
+        int index = current.ordinal();
+        wall[index] += nowwall - lastwall;
+        cpu[index] += nowcpu - lastcpu;
+        alloc[index] += nowalloc - lastalloc;
+        lastwall = nowwall;
+        lastcpu = nowcpu;
+        lastalloc = nowalloc;
+    }
+
+    public long wall(Phase phase) {
+        return wall[phase.ordinal()];
+    }
+
+    public long cpu(Phase phase) {
+        return cpu[phase.ordinal()];
+    }
+
+    public long alloc(Phase phase) {
+        return alloc[phase.ordinal()];
+    }
+
+    public long wall() {
+        return sum(wall);
+    }
+
+    public long cpu() {
+        return sum(cpu);
+    }
+
+    public long alloc() {
+        return sum(alloc);
+    }
+
+    public Phase slowest() {
+        Phase result = Phase.CLASS;
+        for (Phase phase : Phase.values()) {
+            if (wall(phase) > wall(result)) {
+                result = phase;
+            }
+        }
+        return result;
+    }
+
+    private static long sum(long[] values) {
+        long result = 0;
+        for (long value : values) {
+            result += value;
+        }
+        return result;
+    }
+
+}
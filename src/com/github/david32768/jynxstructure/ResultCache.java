@@ -0,0 +1,204 @@
+package com.github.david32768.jynxstructure;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.module.ModuleDescriptor;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.github.david32768.jynxfree.jynx.MainOptionService;
+
+// results of checked classes, one file per key; least recently used are removed when over limit
+public class ResultCache {
+
+    private static final String SUFFIX = ".result";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String DIGEST = "SHA-256";
+    private static final Duration STALE_TEMP = Duration.ofHours(1); // left by a run that was killed
+
+    private final Path dir;
+    private final long limit;
+    private final String prefix; // tool versions and options that affect results
+
+    public record Result(boolean ok, int errors, int warnings, String text) {}
+
+    private record CacheFile(Path path, long size, FileTime used) {}
+
+    private ResultCache(Path dir, long limit, String prefix) {
+        this.dir = dir;
+        this.limit = limit;
+        this.prefix = prefix;
+    }
+
+    public static ResultCache open(Path dir, long limit, StructureOptions options) throws IOException {
+        Files.createDirectories(dir);
+        String locals = options.locals().stream()
+                .filter(StructureOption::affectsResult)
+                .map(StructureOption::name)
+                .collect(Collectors.joining(",", "[", "]"));
+        String prefix = String.format("%s %s %s %s", new MainStructure().version(), jynxfreeVersion(),
+                options.globals(), locals);
+        return new ResultCache(dir, limit, prefix);
+    }
+
+    // module version, else jar version, else time of the jar or directory it was loaded from
+    private static String jynxfreeVersion() {
+        Class<?> klass = MainOptionService.class;
+        ModuleDescriptor descriptor = klass.getModule().getDescriptor();
+        if (descriptor != null && descriptor.rawVersion().isPresent()) {
+            return descriptor.rawVersion().get();
+        }
+        String version = klass.getPackage().getImplementationVersion();
+        if (version != null) {
+            return version;
+        }
+        CodeSource source = klass.getProtectionDomain().getCodeSource();
+        if (source == null) {
+            return "unknown";
+        }
+        try {
+            return Files.getLastModifiedTime(Paths.get(source.getLocation().toURI())).toString();
+        } catch (IOException | URISyntaxException | RuntimeException ex) {
+            return source.getLocation().toString();
+        }
+    }
+
+    public String key(String name, long crc, long size) {
+        MessageDigest md = digest(name);
+        md.update(String.format("%d %d", crc, size).getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(md.digest());
+    }
+
+    // loose class files have no crc so the content is hashed
+    public String key(String name, ByteBuffer bytes) {
+        MessageDigest md = digest(name);
+        md.update(bytes.duplicate());
+        return HexFormat.of().formatHex(md.digest());
+    }
+
+    private MessageDigest digest(String name) {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance(DIGEST);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new AssertionError(ex);
+        }
+        md.update(prefix.getBytes(StandardCharsets.UTF_8));
+        md.update((byte)0);
+        md.update(name.getBytes(StandardCharsets.UTF_8));
+        md.update((byte)0);
+        return md;
+    }
+
+    public Optional<Result> get(String key) {
+        Path path = dir.resolve(key + SUFFIX);
+        try (InputStream is = Files.newInputStream(path);
+                DataInputStream dis = new DataInputStream(is)) {
+            boolean ok = dis.readBoolean();
+            int errors = dis.readInt();
+            int warnings = dis.readInt();
+            String text = new String(dis.readAllBytes(), StandardCharsets.UTF_8);
+            Files.setLastModifiedTime(path, FileTime.from(Instant.now()));
+            return Optional.of(new Result(ok, errors, warnings, text));
+        } catch (IOException ex) {
+            return Optional.empty(); // not cached, removed or unreadable
+        }
+    }
+
+    public void put(String key, Result result) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (DataOutputStream dos = new DataOutputStream(baos)) {
+            dos.writeBoolean(result.ok());
+            dos.writeInt(result.errors());
+            dos.writeInt(result.warnings());
+            dos.write(result.text().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException ex) {
+            throw new AssertionError(ex);
+        }
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(dir, key, TEMP_SUFFIX);
+            Files.write(temp, baos.toByteArray());
+            Files.move(temp, dir.resolve(key + SUFFIX),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            // a result that cannot be cached is checked again next time
+            deleteTemp(temp);
+        }
+    }
+
+    private static void deleteTemp(Path temp) {
+        if (temp == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(temp);
+        } catch (IOException ex) {
+            // removed by evict when stale
+        }
+    }
+
+    public void evict() throws IOException {
+        List<CacheFile> files = new ArrayList<>();
+        long total = 0;
+        Instant stale = Instant.now().minus(STALE_TEMP);
+        try (Stream<Path> paths = Files.list(dir)) {
+            for (Path path : (Iterable<Path>)paths::iterator) {
+                String filename = path.getFileName().toString();
+                boolean temp = filename.endsWith(TEMP_SUFFIX);
+                if (!temp && !filename.endsWith(SUFFIX)) {
+                    continue;
+                }
+                BasicFileAttributes attrs;
+                try {
+                    attrs = Files.readAttributes(path, BasicFileAttributes.class);
+                } catch (NoSuchFileException ex) { // moved or removed by another run
+                    continue;
+                }
+                if (temp) { // a recent one may be being written by another run
+                    if (attrs.lastModifiedTime().toInstant().isBefore(stale)) {
+                        Files.deleteIfExists(path);
+                    }
+                    continue;
+                }
+                files.add(new CacheFile(path, attrs.size(), attrs.lastModifiedTime()));
+                total += attrs.size();
+            }
+        }
+        if (total <= limit) {
+            return;
+        }
+        files.sort(Comparator.comparing(CacheFile::used));
+        for (CacheFile file : files) {
+            if (total <= limit) {
+                break;
+            }
+            Files.deleteIfExists(file.path());
+            total -= file.size();
+        }
+    }
+
+}
@@ -1,9 +1,12 @@
 package com.github.david32768.jynxstructure;
 
+import java.util.Optional;
+
 import com.github.david32768.jynxfree.jvm.AttributeEntry;
 import com.github.david32768.jynxfree.jvm.StandardAttribute;
 
 import com.github.david32768.jynxstructure.attribute.SimpleAttributeElement;
+import com.github.david32768.jynxstructure.attribute.TableValidator;
 
 public class SimpleAttribute extends AttributeInstance {
 
@@ -14,10 +17,17 @@ public class SimpleAttribute extends AttributeInstance {
     @Override
     public void checkCPEntries(IndentPrinter ptr) {
         int ct = itemCount();
+        Optional<TableValidator> table = TableValidator.of(attr);
+        if (table.isPresent() && table.get().check(buffer, ct)) {
+            return;
+        }
         AttributeEntry[] entries = attr.entries();
+        SimpleAttributeElement[] elements = new SimpleAttributeElement[entries.length];
+        for (int j = 0; j < entries.length; ++j) {
+            elements[j] = SimpleAttributeElement.of(ptr, entries[j], buffer);
+        }
         for (int i = 0; i < ct; ++i) {
-            for (AttributeEntry entry:entries) {
-                SimpleAttributeElement sae = SimpleAttributeElement.of(ptr, entry, buffer);
+            for (SimpleAttributeElement sae:elements) {
                 sae.check();
             }
         }
@@ -2,158 +2,245 @@ package com.github.david32768.jynxstructure;
 
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.HashSet;
-import java.util.Optional;
 import java.util.Set;
 
 import static com.github.david32768.jynxfree.jvm.Context.*;
-import static com.github.david32768.jynxfree.jynx.Global.*;
 import static com.github.david32768.jynxstructure.my.Message.M500;
 import static com.github.david32768.jynxstructure.my.Message.M502;
 import static com.github.david32768.jynxstructure.my.Message.M503;
 import static com.github.david32768.jynxstructure.my.Message.M517;
 
-import com.github.david32768.jynxfree.jvm.AccessFlag;
 import com.github.david32768.jynxfree.jvm.Attribute;
 import com.github.david32768.jynxfree.jvm.AttributeType;
 import com.github.david32768.jynxfree.jvm.ConstantPoolType;
 import com.github.david32768.jynxfree.jvm.Context;
 import com.github.david32768.jynxfree.jvm.JvmVersion;
+import com.github.david32768.jynxfree.jvm.StandardAttribute;
 import com.github.david32768.jynxfree.jynx.ClassUtil;
 import com.github.david32768.jynxfree.jynx.GlobalOption;
 import com.github.david32768.jynxfree.jynx.LogIllegalArgumentException;
 import com.github.david32768.jynxfree.jynx.LogUnexpectedEnumValueException;
+import com.github.david32768.jynxstructure.PhaseTimer.Phase;
 
 public class Structure {
 
     private final String classname;
     private final JvmVersion jvmVersion;
+    private final ClassContext ctx;
+    private final boolean detail;
+    private final boolean skipcode;
+    private final boolean onerror;
+    private final StructureVisitor visitor;
+    private final PhaseTimer timer;
 
-    private Structure(String klass, JvmVersion jvmversion) {
+    private int methodnamecp; // of method being checked
+    private int methodtypecp;
+
+    private Structure(String klass, ClassContext ctx) {
         this.classname = klass;
-        this.jvmVersion = jvmversion;
+        this.jvmVersion = ctx.jvmVersion();
+        this.ctx = ctx;
+        this.detail = ctx.detail();
+        this.skipcode = ctx.option(StructureOption.SKIP_CODE);
+        this.onerror = ctx.option(StructureOption.DETAIL_ON_ERROR);
+        this.visitor = ctx.visitor();
+        this.timer = ctx.timer();
     }
 
     private static final int MAGIC = 0xcafebabe;
     
-    private static void checkInstance(IndentPrinter ptr, ByteBuffer bb) throws IOException {
+    private static void checkInstance(IndentPrinter ptr, ByteBuffer bb, StructureOptions options,
+            Diagnostics diagnostics, StructureVisitor visitor, PhaseTimer timer, ClassStructureCheckEvent event)
+            throws IOException {
         int qmagic = bb.getInt();
         if (qmagic != MAGIC) {
             // "magic number is %#x; should be %#x"
             throw new LogIllegalArgumentException(M500,qmagic,MAGIC);
         }
-        JvmVersion jvmversion = JvmVersion.fromASM(bb.getInt());
-        setJvmVersion(jvmversion);
+        ClassContext ctx = new ClassContext(bb.getInt(), options, diagnostics, visitor, timer);
+        JvmVersion jvmversion = ctx.jvmVersion();
+        diagnostics.setJvmVersion(jvmversion);
         ptr.println("VERSION %s",jvmversion);
         int poolstart = bb.position();
-        ConstantPool pool = ConstantPool.getInstance(bb,jvmversion);
+        ConstantPoolParseEvent poolevent = new ConstantPoolParseEvent();
+        poolevent.begin();
+        timer.start(Phase.POOL_READ);
+        ConstantPool pool = ConstantPool.getInstance(bb,ctx);
+        timer.end(Phase.POOL_READ);
+        poolevent.end();
+        timer.start(Phase.POOL_CHECK);
         pool.check();
+        timer.end(Phase.POOL_CHECK);
+        visitor.visitPool(pool);
         int poolend = bb.position();
         ptr.println("CONSTANT POOL  entries = [1,%d] ; start = %#x length = %#x",
                 pool.last(), poolstart, poolend - poolstart);
-        if (OPTION(GlobalOption.DETAIL) || OPTION(GlobalOption.DETAIL_CONSTANT_POOL)) {
-            pool.printCP(ptr);
+        if (ctx.detailConstantPool()) {
+            ptr.printLazily(pool::printCP);
         }
         pool.resetUsed();
-        IndentPrinter classptr = OPTION(GlobalOption.DETAIL_CONSTANT_POOL)?
-                new IndentPrinter(new PrintWriter(PrintWriter.nullWriter())):
+        IndentPrinter classptr = ctx.option(GlobalOption.DETAIL_CONSTANT_POOL)?
+                IndentPrinter.nullPrinter():
                 ptr;
-        Buffer buffer = new Buffer(pool,bb);
+        AttributeBuffer buffer = new AttributeBuffer(pool,bb);
         int access = buffer.nextUnsignedShort();
-        String klassname = buffer.nextClassName();
-        Structure struct =  new Structure(klassname, jvmversion);
-        struct.checkClass(classptr,buffer,access);
-        pool.checkBootstraps();
-        if (OPTION(GlobalOption.DETAIL) || OPTION(GlobalOption.DETAIL_CONSTANT_POOL)) {
+        int thiscp = buffer.nextCPIndex(ConstantPoolType.CONSTANT_Class);
+        String klassname = buffer.className(thiscp);
+        poolevent.commit(klassname, pool.last(), poolend - poolstart);
+        event.setClassName(klassname);
+        Structure struct =  new Structure(klassname, ctx);
+        struct.checkClass(classptr,buffer,access,thiscp);
+        boolean skipcode = ctx.option(StructureOption.SKIP_CODE);
+        if (!skipcode) { // usage by instructions is unknown
+            timer.start(Phase.BOOTSTRAPS);
+            pool.checkBootstraps();
+            timer.end(Phase.BOOTSTRAPS);
+        }
+        if (ctx.detailConstantPool()) {
             pool.printBoot(ptr);
         }
-        pool.checkUsed();
+        if (!skipcode) {
+            timer.start(Phase.USAGE);
+            pool.checkUsed();
+            timer.end(Phase.USAGE);
+        }
+        visitor.visitEnd();
     }
     
-    private void checkClass(IndentPrinter ptr, Buffer buffer, int access) {
+    private void checkClass(IndentPrinter ptr, AttributeBuffer buffer, int access, int thiscp) {
         try {
             Context context = classname.equals("module-info")? MODULE: CLASS;
             setLoggerContext(context, buffer);
-            ptr.println("CLASS %s %s ; start = %#x length = %#x",
-                    classname, accessString(CLASS, access),
-                    buffer.position(), buffer.remaining());
+            visitor.visitClass(access, thiscp, buffer.position(), buffer.remaining());
+            ctx.checkAccess(access, CLASS);
+            if (ptr.prints()) {
+                int start = buffer.position();
+                int length = buffer.remaining();
+                ptr.printLazily(p -> p.println("CLASS %s %s ; start = %#x length = %#x",
+                        classname, ctx.accessString(access, CLASS), start, length));
+            }
             buffer.nextOptCPEntry(ConstantPoolType.CONSTANT_Class); // super
             int ct = buffer.nextUnsignedShort();
             for (int i = 0; i < ct; ++i) {
                 buffer.nextCPEntry(ConstantPoolType.CONSTANT_Class);
             }
+            timer.start(Phase.FIELDS);
             check_fields(ptr,buffer);
+            timer.end(Phase.FIELDS);
             setLoggerContext(context, buffer);
+            timer.start(Phase.METHODS);
             check_methods(ptr,buffer);
+            timer.end(Phase.METHODS);
             setLoggerContext(context, buffer);
             check_attrs(context,ptr,buffer);
             setLoggerContext(context, buffer);
             if (buffer.hasRemaining()) {
                 // "%s %s has %d extra bytes at end"
-                LOG(M502, CLASS, classname, buffer.remaining());
+                ctx.log(M502, CLASS, classname, buffer.remaining());
                 buffer.advanceToLimit();
             }
         } catch (ArithmeticException ex) {
-            LOG(ex);
+            ctx.log(ex);
         }
     }
     
-    private void check_fields(IndentPrinter ptr,Buffer buffer) {
+    private void check_fields(IndentPrinter ptr,AttributeBuffer buffer) {
         int ct = buffer.nextUnsignedShort();
         Context context = FIELD;
         for (int i = 0; i < ct; ++i) {
             setLoggerContext(context, buffer);
+            int mark = ptr.mark();
+            int errors = ctx.diagnostics().errors();
             int start_offset = buffer.position();
             int access = buffer.nextUnsignedShort();
-            String name = buffer.nextUTF8();
-            String type = buffer.nextUTF8();
-            ptr.println("%s %s %s %s ; start = %#x", context, name, type,
-                    accessString(FIELD, access), start_offset);
+            int namecp = buffer.nextCPIndex(ConstantPoolType.CONSTANT_Utf8);
+            int typecp = buffer.nextCPIndex(ConstantPoolType.CONSTANT_Utf8);
+            visitor.visitField(access, namecp, typecp, start_offset);
+            ctx.checkAccess(access, context);
+            if (ptr.prints()) {
+                ConstantPool pool = buffer.pool();
+                ptr.printLazily(p -> p.println("%s %s %s %s ; start = %#x", context,
+                        pool.getValue(namecp), pool.getValue(typecp),
+                        ctx.accessString(access, context), start_offset));
+            }
             check_attrs(context,ptr.shift(),buffer);
+            visitor.visitMemberEnd(buffer.position() - start_offset);
+            discardIfNoErrors(ptr, mark, errors);
         }
     }
 
-    private void check_methods(IndentPrinter ptr,Buffer buffer) {
+    private void check_methods(IndentPrinter ptr,AttributeBuffer buffer) {
         int ct = buffer.nextUnsignedShort();
         Context context = METHOD;
         for (int i = 0; i < ct; ++i) {
             setLoggerContext(context, buffer);
+            int mark = ptr.mark();
+            int errors = ctx.diagnostics().errors();
             int start_offset = buffer.position();
             int access = buffer.nextUnsignedShort();
-            String name = buffer.nextUTF8();
-            String type = buffer.nextUTF8();
-            ptr.println("%s %s%s %s ; start = %#x", context, name, type,
-                    accessString(METHOD, access), start_offset);
+            int namecp = buffer.nextCPIndex(ConstantPoolType.CONSTANT_Utf8);
+            int typecp = buffer.nextCPIndex(ConstantPoolType.CONSTANT_Utf8);
+            visitor.visitMethod(access, namecp, typecp, start_offset);
+            ctx.checkAccess(access, context);
+            methodnamecp = namecp;
+            methodtypecp = typecp;
+            if (ptr.prints()) {
+                ConstantPool pool = buffer.pool();
+                ptr.printLazily(p -> p.println("%s %s%s %s ; start = %#x", context,
+                        pool.getValue(namecp), pool.getValue(typecp),
+                        ctx.accessString(access, context), start_offset));
+            }
             check_attrs(context,ptr.shift(),buffer);
+            visitor.visitMemberEnd(buffer.position() - start_offset);
+            discardIfNoErrors(ptr, mark, errors);
         }
     }
 
-    private void check_attrs(Context context, IndentPrinter ptr, Buffer buffer) {
-        Set<Attribute> attrset = new HashSet<>();
+    private void discardIfNoErrors(IndentPrinter ptr, int mark, int errors) {
+        if (onerror && ctx.diagnostics().errors() == errors) {
+            ptr.reset(mark);
+        }
+    }
+
+    private void check_attrs(Context context, IndentPrinter ptr, AttributeBuffer buffer) {
+        Set<Attribute> attrset = null; // only needed if more than one
         int attrs_ct = buffer.nextUnsignedShort();
         for (int i = 0; i < attrs_ct; ++i) {
             setLoggerAttributeContext(context, buffer);
             int start_offset = buffer.position();
-            String attrnamestr = buffer.nextUTF8();
+            int namecp = buffer.nextCPIndex(ConstantPoolType.CONSTANT_Utf8);
+            String attrnamestr = (String)buffer.pool().getValue(namecp);
             int size = buffer.nextSize();
-            AttributeBuffer attrbuff = buffer.attributeBuffer(context, attrnamestr, size);
-            AttributeInstance attr = AttributeInstance.getInstance(attrbuff);
-            String attrdesc = attr.attrDesc(jvmVersion);
-            ptr.println("%s ; start = %#x length = %#x",
-                    attrdesc, start_offset, attr.size());
-            if (!attr.isKnown()) {
-                continue;
+            visitor.visitAttribute(context, namecp, start_offset, size);
+            buffer.push(context, attrnamestr, size);
+            try {
+                AttributeInstance attr = AttributeInstance.getInstance(buffer, buffer.pool().standardAttribute(namecp));
+                if (ptr.prints()) {
+                    ptr.printLazily(p -> p.println("%s ; start = %#x length = %#x",
+                            attr.attrDesc(jvmVersion), start_offset, attr.size()));
+                }
+                if (!attr.isKnown()) {
+                    continue;
+                }
+                Attribute attribute = attr.attribute();
+                if (attrset == null && attrs_ct > 1) {
+                    attrset = new HashSet<>();
+                }
+                boolean added = attrset == null || attrset.add(attribute);
+                if (!added && attribute.isUnique()) {
+                    // "duplicate attribute %s in contexr %s"
+                    ctx.log(M517,attr,context);
+                }
+                checkAttributeStructure(ptr.shift(),attr);
+                attr.checkAtLimit();
+            } finally {
+                buffer.pop();
             }
-            Attribute attribute = attr.attribute();
-            boolean added = attrset.add(attribute);
-            if (!added && attribute.isUnique()) {
-                // "duplicate attribute %s in contexr %s"
-                LOG(M517,attr,context);
-            }
-            checkAttributeStructure(ptr.shift(),attr);
-            attr.checkAtLimit();
         }
     }
 
@@ -162,31 +249,54 @@ public class Structure {
         AttributeBuffer attrbuff = attrx.buffer();
         AttributeType attrtype = attr.type();
         switch (attrtype) {
-            case FIXED, ARRAY1, ARRAY, MODULE -> attrx.checkCPEntries(ptr);
-            case CODE -> checkCode(ptr, attrbuff);
+            case FIXED, ARRAY1, ARRAY, MODULE -> {
+                boolean frames = attr == StandardAttribute.StackMapTable;
+                if (frames) {
+                    timer.start(Phase.FRAMES);
+                }
+                attrx.checkCPEntries(ptr);
+                if (frames) {
+                    timer.end(Phase.FRAMES);
+                }
+            }
+            case CODE -> {
+                timer.start(Phase.CODE);
+                if (skipcode) {
+                    attrbuff.skipCode(ptr);
+                } else {
+                    checkCode(ptr, attrbuff);
+                }
+                timer.end(Phase.CODE);
+            }
             case RECORD -> checkRecord(ptr,attrbuff);
             default -> throw new LogUnexpectedEnumValueException(attrtype);
         }
     }
 
     private void checkCode(IndentPrinter ptr, AttributeBuffer attrbuff) {
+        MethodCodeCheckEvent event = new MethodCodeCheckEvent();
+        event.begin();
+        int size = attrbuff.remaining();
+        int errors = ctx.diagnostics().errors();
         CodeBuffer codebuff = attrbuff.codeBuffer(ptr);
         int ct = codebuff.nextUnsignedShort();
         for (int i = 0; i < ct; ++i) {
             int startpc = codebuff.nextLabel();
             int endpc = codebuff.nextLabel();
             int handlerpc = codebuff.nextLabel();
-            Optional<CPEntry> optentry = codebuff.nextOptCPEntry(ConstantPoolType.CONSTANT_Class);
-            String handle = (String)optentry.map(cpe -> attrbuff.pool.stringValue(cpe)).orElse("all");
-            if (OPTION(GlobalOption.DETAIL_INSTRUCTIONS) || OPTION(GlobalOption.DETAIL)) {
+            int catchcp = codebuff.nextOptCPIndex(ConstantPoolType.CONSTANT_Class);
+            visitor.visitExceptionEntry(startpc, endpc, handlerpc, catchcp);
+            if (detail) {
+                String handle = catchcp == 0? "all": codebuff.className(catchcp);
                 ptr.shift().println("catch %s in [%d, %d) at %d", handle, startpc, endpc, handlerpc);
             }
             if (endpc < startpc) {
                 // "startpc (%d) > endpc (%d)"
-                LOG(M503, startpc, endpc);
+                ctx.log(M503, startpc, endpc);
             }
         }
         check_attrs(CODE, ptr, codebuff);
+        event.commit(classname, codebuff, methodnamecp, methodtypecp, size, ctx.diagnostics().errors() - errors);
     }
 
     private void checkRecord(IndentPrinter ptr, AttributeBuffer attrbuff) {
@@ -200,39 +310,118 @@ public class Structure {
         }
     }
 
-    private String accessString(Context context, int access) {
-        return AccessFlag.getEnumSet(access, context, jvmVersion).toString();
-    }
-
     private void setLoggerContext(Context context, Buffer buffer) {
-        log("", context, buffer);
+        ctx.diagnostics().setContext(context, false, buffer.position());
     }
     
     private void setLoggerAttributeContext(Context context, Buffer buffer) {
-        log(" Attribute", context, buffer);
-    }
-    
-    private void log(String attribute, Context context, Buffer buffer) {
-        String line = String.format("Context %s%s: start = %#x", context, attribute, buffer.position());
-        LOGGER().setLine(line);
+        ctx.diagnostics().setContext(context, true, buffer.position());
     }
     
     public static boolean printClassStructure(String klass, PrintWriter pw) {
+        Diagnostics diagnostics = new GlobalDiagnostics();
+        ByteBuffer bb;
         try {
-            ByteBuffer bb = ByteBuffer.wrap(ClassUtil.getClassBytes(klass));
-            bb = bb.asReadOnlyBuffer();
-            bb.order(ByteOrder.BIG_ENDIAN);
-            pw.println("START " + klass);
-            IndentPrinter ptr = new IndentPrinter(pw);
-            Structure.checkInstance(ptr, bb);
-            pw.println("END " + klass);
+            bb = ByteBuffer.wrap(ClassUtil.getClassBytes(klass));
         } catch(IOException ioex) {
-            LOG(ioex);
+            diagnostics.log(ioex);
             return false;
         }
-        boolean ok = END_MESSAGES(klass);
+        return printClassStructure(klass, bb, pw, StructureOptions.global(), diagnostics);
+    }
+
+    public static boolean printClassStructure(String klass, ByteBuffer bytes, PrintWriter pw,
+            StructureOptions options, Diagnostics diagnostics) {
+        return printClassStructure(klass, bytes, pw, options, diagnostics, PhaseTimer.NONE);
+    }
+
+    public static boolean printClassStructure(String klass, ByteBuffer bytes, PrintWriter pw,
+            StructureOptions options, Diagnostics diagnostics, PhaseTimer timer) {
+        ClassStructureCheckEvent event = new ClassStructureCheckEvent();
+        event.begin();
+        boolean checkonly = options.has(StructureOption.CHECK_ONLY);
+        boolean onerror = options.has(StructureOption.DETAIL_ON_ERROR);
+        boolean ok = true;
+        try {
+            ByteBuffer bb = bytes.asReadOnlyBuffer();
+            bb.order(ByteOrder.BIG_ENDIAN);
+            if (checkonly) {
+                Structure.checkInstance(IndentPrinter.nullPrinter(), bb, options, diagnostics,
+                        StructureVisitor.NONE, timer, event);
+            } else if (onerror) {
+                IndentPrinter recorder = IndentPrinter.recorder(pw, options.has(GlobalOption.OMIT_COMMENT));
+                boolean passed = false;
+                try {
+                    Structure.checkInstance(recorder, bb, options, diagnostics, StructureVisitor.NONE, timer,
+                            event);
+                    passed = diagnostics.errors() == 0;
+                } finally {
+                    if (!passed) { // also if an exception is thrown
+                        pw.println("START " + klass);
+                        recorder.replay();
+                        pw.println("END " + klass);
+                    }
+                }
+            } else {
+                pw.println("START " + klass);
+                IndentPrinter ptr = new IndentPrinter(pw, options.has(GlobalOption.OMIT_COMMENT));
+                Structure.checkInstance(ptr, bb, options, diagnostics, StructureVisitor.NONE, timer, event);
+                pw.println("END " + klass);
+            }
+        } catch(IOException ioex) {
+            diagnostics.log(ioex);
+            ok = false;
+        }
+        event.commit(klass, bytes.remaining(), diagnostics);
+        ok &= diagnostics.end(klass);
+        if (checkonly || onerror) {
+            pw.println((ok? "PASSED ": "FAILED ") + klass);
+        }
         pw.flush();
         return ok;
     }
 
+    // heap, mapped or arena allocated; see byteBuffer
+    public static boolean printClassStructure(String klass, MemorySegment bytes, PrintWriter pw,
+            StructureOptions options, Diagnostics diagnostics) {
+        return printClassStructure(klass, byteBuffer(bytes), pw, options, diagnostics);
+    }
+
+    public static boolean visitClassStructure(MemorySegment bytes, StructureOptions options,
+            StructureVisitor visitor) {
+        return visitClassStructure(byteBuffer(bytes), options, visitor);
+    }
+
+    // a view of the segment; copied if a heap segment not backed by a byte[], which has no view
+    private static ByteBuffer byteBuffer(MemorySegment bytes) {
+        try {
+            return bytes.asByteBuffer();
+        } catch (UnsupportedOperationException ex) {
+            return ByteBuffer.wrap(bytes.toArray(ValueLayout.JAVA_BYTE));
+        }
+    }
+
+    // nothing is printed; diagnostics are passed to the visitor
+    public static boolean visitClassStructure(ByteBuffer bytes, StructureOptions options,
+            StructureVisitor visitor) {
+        Diagnostics diagnostics = new VisitorDiagnostics(visitor,
+                new ClassDiagnostics(options.has(GlobalOption.DEBUG)));
+        return visitClassStructure(bytes, options, visitor, diagnostics, PhaseTimer.NONE);
+    }
+
+    public static boolean visitClassStructure(ByteBuffer bytes, StructureOptions options,
+            StructureVisitor visitor, Diagnostics diagnostics, PhaseTimer timer) {
+        ClassStructureCheckEvent event = new ClassStructureCheckEvent();
+        event.begin();
+        try {
+            ByteBuffer bb = bytes.asReadOnlyBuffer();
+            bb.order(ByteOrder.BIG_ENDIAN);
+            Structure.checkInstance(IndentPrinter.nullPrinter(), bb, options, diagnostics, visitor, timer, event);
+        } catch(IOException | RuntimeException ex) {
+            diagnostics.log(ex);
+        }
+        event.commit(null, bytes.remaining(), diagnostics); // name from the class if read
+        return diagnostics.end("");
+    }
+
 }
@@ -0,0 +1,118 @@
+package com.github.david32768.jynxstructure;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+
+import com.github.david32768.jynxfree.jynx.GlobalOption;
+
+// standalone launcher that also accepts StructureOption
+public class StructureMain {
+
+    private static final String OPTION_PREFIX = "--";
+    private static final String THREADS = "THREADS";
+    private static final String CACHE = "CACHE";
+    private static final String CACHE_LIMIT = "CACHE_LIMIT";
+    private static final long DEFAULT_CACHE_LIMIT = 256; // MB
+
+    private StructureMain() {}
+
+    public static void main(String[] args) {
+        EnumSet<GlobalOption> globals = EnumSet.noneOf(GlobalOption.class);
+        EnumSet<StructureOption> locals = EnumSet.noneOf(StructureOption.class);
+        int threads = StructureOptions.defaultThreads();
+        Path cachedir = null;
+        long cachelimit = DEFAULT_CACHE_LIMIT;
+        List<String> inputs = new ArrayList<>();
+        for (int i = 0; i < args.length; ++i) {
+            String arg = args[i];
+            if (!arg.startsWith(OPTION_PREFIX)) {
+                inputs.addAll(BatchStructure.args(arg));
+                continue;
+            }
+            String name = arg.substring(OPTION_PREFIX.length()).toUpperCase();
+            try {
+                if (name.equals(THREADS) && i + 1 < args.length) {
+                    threads = Integer.parseInt(args[++i]);
+                    continue;
+                }
+                if (name.equals(CACHE) && i + 1 < args.length) {
+                    cachedir = Path.of(args[++i]);
+                    continue;
+                }
+                if (name.equals(CACHE_LIMIT) && i + 1 < args.length) {
+                    cachelimit = Long.parseLong(args[++i]);
+                    if (cachelimit < 0 || cachelimit > Long.MAX_VALUE >> 20) {
+                        throw new IllegalArgumentException("cache limit out of range");
+                    }
+                    continue;
+                }
+            } catch (IllegalArgumentException ex) { // includes NumberFormatException and InvalidPathException
+                usage("invalid value " + args[i] + " for " + arg + ": " + ex.getMessage());
+                return;
+            }
+            Optional<StructureOption> local = StructureOption.getInstance(name);
+            if (local.isPresent()) {
+                locals.add(local.get());
+                continue;
+            }
+            try {
+                globals.add(GlobalOption.valueOf(name));
+            } catch (IllegalArgumentException ex) {
+                usage("unknown option " + arg);
+                return;
+            }
+        }
+        if (inputs.isEmpty()) {
+            usage("no input");
+            return;
+        }
+        StructureOptions options;
+        try {
+            options = new StructureOptions(globals, locals, threads);
+        } catch (IllegalArgumentException ex) {
+            usage(ex.getMessage());
+            return;
+        }
+        Writer out = new OutputStreamWriter(new FileOutputStream(FileDescriptor.out));
+        if (options.has(StructureOption.ASYNC_OUTPUT)) {
+            out = new AsyncWriter(out);
+        }
+        ResultCache cache = null;
+        if (cachedir != null) {
+            try {
+                cache = ResultCache.open(cachedir, cachelimit << 20, options);
+            } catch (IOException ex) {
+                usage("cannot use cache " + cachedir + ": " + ex);
+                return;
+            }
+        }
+        boolean ok;
+        try (PrintWriter pw = new PrintWriter(out)) {
+            ok = BatchStructure.check(pw, inputs, options, cache);
+        }
+        System.exit(ok? 0: 1);
+    }
+
+    private static void usage(String msg) {
+        System.err.println(msg);
+        System.err.println("Usage: {options} class-name|class_file|jar|directory|@class-list|jrt ...");
+        System.err.println(" --THREADS n number of checking threads");
+        System.err.println(" --CACHE directory cache results of unchanged classes");
+        System.err.println(" --CACHE_LIMIT n maximum size of cache in MB (default 256)");
+        for (StructureOption option : StructureOption.values()) {
+            System.err.format(" --%s %s%n", option.name(), option.description());
+        }
+        System.err.println(" and the structure options of JynxFree");
+        System.exit(2);
+    }
+
+}
@@ -0,0 +1,44 @@
+package com.github.david32768.jynxstructure;
+
+import java.util.Optional;
+
+// options of this module that are not in GlobalOption
+public enum StructureOption {
+
+    ASYNC_OUTPUT("write output on a background thread"),
+    CHECK_ONLY("only print pass/fail and messages; overrides DETAIL options"),
+    DETAIL_ON_ERROR("print DETAIL only for classes with errors, omitting fields and methods without errors"),
+    NDJSON("print one json object per class instead of text"),
+    NDJSON_MEMBERS("print one json object per field, method and class instead of text"),
+    METRICS("print time and allocation of each phase, per class and for the batch"),
+    SKIP_CODE("skip contents of Code attributes; constant pool usage is not checked"),
+    ;
+
+    private final String description;
+
+    private StructureOption(String description) {
+        this.description = description;
+    }
+
+    public String description() {
+        return description;
+    }
+
+    // false if it only changes how or when output is written, not what is written for a class
+    public boolean affectsResult() {
+        return switch (this) {
+            case ASYNC_OUTPUT, METRICS -> false; // metrics are not cached
+            default -> true;
+        };
+    }
+
+    public static Optional<StructureOption> getInstance(String name) {
+        for (StructureOption option : values()) {
+            if (option.name().equals(name)) {
+                return Optional.of(option);
+            }
+        }
+        return Optional.empty();
+    }
+
+}
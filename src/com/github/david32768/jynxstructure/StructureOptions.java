@@ -0,0 +1,73 @@
+package com.github.david32768.jynxstructure;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+import static com.github.david32768.jynxfree.jynx.Global.OPTION;
+
+import com.github.david32768.jynxfree.jynx.GlobalOption;
+
+// immutable
+public class StructureOptions {
+
+    private static final Set<GlobalOption> DETAIL_OPTIONS = EnumSet.of(GlobalOption.DETAIL,
+            GlobalOption.DETAIL_CONSTANT_POOL, GlobalOption.DETAIL_INSTRUCTIONS);
+
+    private final Set<GlobalOption> globals;
+    private final Set<StructureOption> locals;
+    private final int threads;
+
+    public StructureOptions(Set<GlobalOption> globals, Set<StructureOption> locals, int threads) {
+        EnumSet<GlobalOption> globalset = EnumSet.noneOf(GlobalOption.class);
+        globalset.addAll(globals);
+        EnumSet<StructureOption> localset = EnumSet.noneOf(StructureOption.class);
+        localset.addAll(locals);
+        if (localset.contains(StructureOption.CHECK_ONLY)) {
+            globalset.removeAll(DETAIL_OPTIONS);
+            localset.remove(StructureOption.DETAIL_ON_ERROR);
+        }
+        this.globals = Collections.unmodifiableSet(globalset);
+        this.locals = Collections.unmodifiableSet(localset);
+        this.threads = threads;
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads must be positive but is " + threads);
+        }
+    }
+
+    public static int defaultThreads() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    // as set in Global (JynxFree)
+    public static StructureOptions global() {
+        EnumSet<GlobalOption> options = EnumSet.noneOf(GlobalOption.class);
+        for (GlobalOption option : GlobalOption.values()) {
+            if (OPTION(option)) {
+                options.add(option);
+            }
+        }
+        return new StructureOptions(options, Set.of(), defaultThreads());
+    }
+
+    public boolean has(GlobalOption option) {
+        return globals.contains(option);
+    }
+
+    public boolean has(StructureOption option) {
+        return locals.contains(option);
+    }
+
+    public Set<GlobalOption> globals() {
+        return globals;
+    }
+
+    public Set<StructureOption> locals() {
+        return locals;
+    }
+
+    public int threads() {
+        return threads;
+    }
+
+}
@@ -0,0 +1,48 @@
+package com.github.david32768.jynxstructure;
+
+import java.lang.classfile.Opcode;
+
+import com.github.david32768.jynxfree.jvm.Context;
+import com.github.david32768.jynxfree.jvm.OpPart;
+import com.github.david32768.jynxfree.jynx.LogMsgType;
+
+// events of the structure walk in class file order; cp values are constant pool indices
+public interface StructureVisitor {
+
+    StructureVisitor NONE = new StructureVisitor() {};
+
+    // to resolve constant pool indices
+    default void visitPool(ConstantPool pool) {}
+
+    default void visitClass(int access, int thiscp, int start, int length) {}
+
+    default void visitField(int access, int namecp, int desccp, int start) {}
+
+    default void visitMethod(int access, int namecp, int desccp, int start) {}
+
+    // after the attributes of a field or method
+    default void visitMemberEnd(int length) {}
+
+    default void visitAttribute(Context context, int namecp, int start, int length) {}
+
+    default void visitCode(int maxstack, int maxlocals, int codelength) {}
+
+    default void visitInstruction(int offset, Opcode op) {}
+
+    // cp index, label offset, local variable or immediate value
+    default void visitOperand(OpPart part, int value) {}
+
+    default void visitSwitchCase(int value, int label) {}
+
+    // catchcp is zero for any
+    default void visitExceptionEntry(int startpc, int endpc, int handlerpc, int catchcp) {}
+
+    // an early larval frame is reported by its base frame
+    default void visitFrame(int offset, int frametype) {}
+
+    // id is the message name, or the exception class if not a message; line is the logger context
+    default void visitDiagnostic(LogMsgType type, String id, Object[] args, String message, String line) {}
+
+    default void visitEnd() {}
+
+}
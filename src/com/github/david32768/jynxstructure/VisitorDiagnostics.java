@@ -0,0 +1,64 @@
+package com.github.david32768.jynxstructure;
+
+import com.github.david32768.jynxfree.jvm.Context;
+import com.github.david32768.jynxfree.jvm.JvmVersion;
+import com.github.david32768.jynxfree.jynx.JynxMessage;
+import com.github.david32768.jynxfree.jynx.LogMsgType;
+
+// messages for one class are passed to a visitor as well as to delegate
+public class VisitorDiagnostics implements Diagnostics {
+
+    private static final Object[] NO_ARGS = new Object[0];
+
+    private final StructureVisitor visitor;
+    private final Diagnostics delegate;
+
+    private final LogContext context;
+
+    public VisitorDiagnostics(StructureVisitor visitor, Diagnostics delegate) {
+        this.visitor = visitor;
+        this.delegate = delegate;
+        this.context = new LogContext();
+    }
+
+    @Override
+    public void setJvmVersion(JvmVersion jvmversion) {
+        delegate.setJvmVersion(jvmversion);
+    }
+
+    @Override
+    public void setContext(Context context, boolean attribute, int offset) {
+        this.context.set(context, attribute, offset);
+        delegate.setContext(context, attribute, offset);
+    }
+
+    @Override
+    public void log(JynxMessage msg, Object... objs) {
+        visitor.visitDiagnostic(msg.getLogtype(), msg.toString(), objs, msg.format(objs), context.line());
+        delegate.log(msg, objs);
+    }
+
+    @Override
+    public void log(Exception ex) {
+        String msg = ex.getMessage();
+        visitor.visitDiagnostic(LogMsgType.ERROR, ex.getClass().getSimpleName(), NO_ARGS,
+                msg == null? ex.toString(): msg, context.line());
+        delegate.log(ex);
+    }
+
+    @Override
+    public int errors() {
+        return delegate.errors();
+    }
+
+    @Override
+    public int warnings() {
+        return delegate.warnings();
+    }
+
+    @Override
+    public boolean end(String classname) {
+        return delegate.end(classname);
+    }
+
+}
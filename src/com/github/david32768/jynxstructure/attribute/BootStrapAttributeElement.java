@@ -1,7 +1,5 @@
 package com.github.david32768.jynxstructure.attribute;
 
-import static com.github.david32768.jynxfree.jynx.Global.JVM_VERSION;
-import static com.github.david32768.jynxfree.jynx.Global.LOG;
 import static com.github.david32768.jynxstructure.my.Message.M507;
 
 import com.github.david32768.jynxfree.jvm.AttributeEntry;
@@ -20,7 +18,7 @@ public class BootStrapAttributeElement extends SimpleAttributeElement {
     @Override
     public void check() {
         CPEntry methodcp = buffer.nextCPEntry(ConstantPoolType.CONSTANT_MethodHandle);
-        JvmVersion jvmversion = JVM_VERSION();
+        JvmVersion jvmversion = buffer.classContext().jvmVersion();
         int argct = buffer.nextUnsignedShort();
         CPEntry[] entries = new CPEntry[1 + argct];
         entries[0] = methodcp;
@@ -29,7 +27,7 @@ public class BootStrapAttributeElement extends SimpleAttributeElement {
             ConstantPoolType cptk = argcp.getType();
             if (!cptk.isLoadableBy(jvmversion)) {
                 // "boot argument %s is not loadable by %s"
-                LOG(M507, cptk, jvmversion);
+                buffer.classContext().log(M507, cptk, jvmversion);
             }
             entries[k + 1] = argcp;
         }
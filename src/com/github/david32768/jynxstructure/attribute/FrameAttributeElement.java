@@ -1,7 +1,5 @@
 package com.github.david32768.jynxstructure.attribute;
 
-import static com.github.david32768.jynxfree.jynx.Global.JVM_VERSION;
-
 import static com.github.david32768.jynxstructure.my.Message.M521;
 import static com.github.david32768.jynxstructure.my.Message.M537;
 
@@ -28,7 +26,7 @@ public class FrameAttributeElement extends SimpleAttributeElement {
     }
     
     private void checkFrame(int itag) {
-        FrameTag tag = FrameTag.of(itag, JVM_VERSION());
+        FrameTag tag = FrameTag.of(itag, buffer.classContext().jvmVersion());
         if (tag == null) {
             // future use
             // "invalid tag %d"
@@ -51,8 +49,9 @@ public class FrameAttributeElement extends SimpleAttributeElement {
                 var ptr1 = ptr.shift();
                 ptr1.println("%s", tag);
                 var ptr2 = ptr1.shift();
+                var pool = buffer.pool();
                 for (var cpentry : cpentries) {
-                    ptr2.println("%s", buffer.pool().stringValue(cpentry));
+                    ptr2.printLazily(p -> p.println("%s", pool.stringValue(cpentry)));
                 }
             }
             return;            
@@ -65,6 +64,7 @@ public class FrameAttributeElement extends SimpleAttributeElement {
             default -> buffer.nextUnsignedShort();
         };
         int offset = buffer.asCodeBuffer().addDelta(delta);
+        buffer.classContext().visitor().visitFrame(offset, itag);
         if (detail) {
             ptr.println("@%d %s (%d)",
                     offset, tag.name(), itag);
@@ -97,7 +97,8 @@ public class FrameAttributeElement extends SimpleAttributeElement {
                 case ft_Object -> {
                     var cpentry = buffer.nextCPEntry(ConstantPoolType.CONSTANT_Class);
                     if (detail) {
-                        ptr1.println("%s %s", ft, buffer.pool().stringValue(cpentry));
+                        var pool = buffer.pool();
+                        ptr1.printLazily(p -> p.println("%s %s", ft, pool.stringValue(cpentry)));
                     }
                 }
                 case ft_Uninitialized -> {
@@ -2,18 +2,12 @@ package com.github.david32768.jynxstructure.attribute;
 
 import java.util.Optional;
 
-import static com.github.david32768.jynxfree.jynx.Global.JVM_VERSION;
-import static com.github.david32768.jynxfree.jynx.Global.LOG;
-import static com.github.david32768.jynxfree.jynx.Global.OPTION;
-
 import static com.github.david32768.jynxstructure.my.Message.M506;
 import static com.github.david32768.jynxstructure.my.Message.M519;
 
-import com.github.david32768.jynxfree.jvm.AccessFlag;
 import com.github.david32768.jynxfree.jvm.AttributeEntry;
 import com.github.david32768.jynxfree.jvm.ConstantPoolType;
 import com.github.david32768.jynxfree.jvm.Context;
-import com.github.david32768.jynxfree.jynx.GlobalOption;
 import com.github.david32768.jynxfree.jynx.LogIllegalArgumentException;
 import com.github.david32768.jynxfree.jynx.LogUnexpectedEnumValueException;
 import com.github.david32768.jynxstructure.AttributeBuffer;
@@ -32,7 +26,7 @@ public class SimpleAttributeElement {
         this.ptr = ptr;
         this.entry = entry;
         this.buffer = buffer;
-        this.detail = OPTION(GlobalOption.DETAIL) || OPTION(GlobalOption.DETAIL_INSTRUCTIONS);
+        this.detail = buffer.classContext().detail();
     }
     
     public static SimpleAttributeElement of(IndentPrinter ptr, AttributeEntry entry, AttributeBuffer buffer) {
@@ -55,7 +49,7 @@ public class SimpleAttributeElement {
             case METHOD_PARAMETER_ACCESS -> checkFlags(Context.PARAMETER);
             case USHORT -> buffer.nextUnsignedShort();
             case LABEL_LENGTH -> checkLabelLength(buffer.asCodeBuffer());
-            case INLINE_UTF8 -> CPEntry.fromUTF8CP(buffer.bb());
+            case INLINE_UTF8 -> buffer.nextInlineUTF8();
             case CONSTANT, CLASSNAME, OPT_CLASSNAME, UTF8, OPT_UTF8,
                     OPT_NAME_TYPE, PACKAGENAME, STRING -> checkCPEntry();
             default -> throw new LogUnexpectedEnumValueException(entry);
@@ -64,7 +58,7 @@ public class SimpleAttributeElement {
     
     private void checkFlags(Context context) {
         int flags = buffer.nextUnsignedShort();
-        AccessFlag.getEnumSet(flags, context, JVM_VERSION());
+        buffer.classContext().checkAccess(flags, context);
     }
     
     private void checkLabelLength(CodeBuffer buffer) {
@@ -81,7 +75,7 @@ public class SimpleAttributeElement {
             ConstantPoolType cptype = cp.getType();
             if (!entry.contains(cptype)) {
                 // "cpentry type %s is invalid for %s"
-                LOG(M519, cptype, entry);
+                buffer.classContext().log(M519, cptype, entry);
             }
         }        
     }
@@ -0,0 +1,106 @@
+package com.github.david32768.jynxstructure.attribute;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.github.david32768.jynxstructure.my.Message.M506;
+import static com.github.david32768.jynxstructure.my.Message.M519;
+
+import com.github.david32768.jynxfree.jvm.Attribute;
+import com.github.david32768.jynxfree.jvm.AttributeEntry;
+import com.github.david32768.jynxfree.jvm.ConstantPoolType;
+import com.github.david32768.jynxfree.jvm.Context;
+import com.github.david32768.jynxfree.jynx.LogIllegalArgumentException;
+import com.github.david32768.jynxfree.jynx.LogUnexpectedEnumValueException;
+import com.github.david32768.jynxstructure.AttributeBuffer;
+import com.github.david32768.jynxstructure.ClassContext;
+import com.github.david32768.jynxstructure.CodeBuffer;
+import com.github.david32768.jynxstructure.ConstantPool;
+
+// rows of fixed size entries (e.g. LineNumberTable) checked in one loop without element objects
+public class TableValidator {
+
+    private static final Map<Attribute, Optional<TableValidator>> VALIDATORS = new ConcurrentHashMap<>();
+
+    private final AttributeEntry[] entries;
+    private final int rowsize;
+    private final boolean code;
+
+    private TableValidator(AttributeEntry[] entries, int rowsize, boolean code) {
+        this.entries = entries;
+        this.rowsize = rowsize;
+        this.code = code;
+    }
+
+    // empty if a row has an entry of variable size or that prints detail
+    public static Optional<TableValidator> of(Attribute attr) {
+        return VALIDATORS.computeIfAbsent(attr, sa -> of(sa.entries()));
+    }
+
+    private static Optional<TableValidator> of(AttributeEntry[] entries) {
+        int rowsize = 0;
+        boolean code = false;
+        for (AttributeEntry entry : entries) {
+            switch (entry) {
+                case LABEL, LV_INDEX -> {
+                    rowsize += 2;
+                    code = true;
+                }
+                case LABEL_LENGTH -> {
+                    rowsize += 4;
+                    code = true;
+                }
+                case INNERCLASS_ACCESS, METHOD_PARAMETER_ACCESS, USHORT,
+                        CONSTANT, CLASSNAME, OPT_CLASSNAME, UTF8, OPT_UTF8,
+                        OPT_NAME_TYPE, PACKAGENAME, STRING -> rowsize += 2;
+                default -> {
+                    return Optional.empty();
+                }
+            }
+        }
+        return Optional.of(new TableValidator(entries.clone(), rowsize, code));
+    }
+
+    // false if the table is truncated and so not checked
+    public boolean check(AttributeBuffer buffer, int rows) {
+        if ((long)rows * rowsize > buffer.remaining()) {
+            return false;
+        }
+        ConstantPool pool = buffer.pool();
+        ClassContext ctx = buffer.classContext();
+        // an empty table out of code context, e.g. a LineNumberTable of a field, has no code buffer
+        CodeBuffer codebuff = code && rows > 0? buffer.asCodeBuffer(): null;
+        for (int i = 0; i < rows; ++i) {
+            for (AttributeEntry entry : entries) {
+                switch (entry) {
+                    case LABEL -> codebuff.nextLabel();
+                    case LV_INDEX -> codebuff.nextVar();
+                    case LABEL_LENGTH -> codebuff.nextEndOffset(codebuff.nextLabel());
+                    case USHORT -> buffer.nextUnsignedShort();
+                    case INNERCLASS_ACCESS -> ctx.checkAccess(buffer.nextUnsignedShort(), Context.INNER_CLASS);
+                    case METHOD_PARAMETER_ACCESS -> ctx.checkAccess(buffer.nextUnsignedShort(), Context.PARAMETER);
+                    case CONSTANT, CLASSNAME, OPT_CLASSNAME, UTF8, OPT_UTF8,
+                            OPT_NAME_TYPE, PACKAGENAME, STRING -> {
+                        int cpindex = buffer.nextUnsignedShort();
+                        if (cpindex == 0) {
+                            if (!entry.isOptional()) {
+                                // "non-optional constant pool entry is missing; expected %s"
+                                throw new LogIllegalArgumentException(M506, entry);
+                            }
+                        } else {
+                            ConstantPoolType cptype = pool.getType(cpindex);
+                            if (!entry.contains(cptype)) {
+                                // "cpentry type %s is invalid for %s"
+                                ctx.log(M519, cptype, entry);
+                            }
+                        }
+                    }
+                    default -> throw new LogUnexpectedEnumValueException(entry);
+                }
+            }
+        }
+        return true;
+    }
+
+}
@@ -1,6 +1,5 @@
 package com.github.david32768.jynxstructure.attribute;
 
-import static com.github.david32768.jynxfree.jynx.Global.LOG;
 import static com.github.david32768.jynxstructure.my.Message.M523;
 import static com.github.david32768.jynxstructure.my.Message.M526;
 import static com.github.david32768.jynxstructure.my.Message.M527;
@@ -81,12 +80,12 @@ public class TypeAnnotationElement extends AbstractAnnotationElement {
             int type_path_kind = buffer.nextUnsignedByte();
             if (type_path_kind > 4) {
                 // "type_path_kind = %d is not in range [0,3]"
-                LOG(M526, type_path_kind);
+                buffer.classContext().log(M526, type_path_kind);
             }
             int type_argument_index = buffer.nextUnsignedByte();
             if (type_argument_index != 0 && type_path_kind != 3) {
                 // "type_argument_index is %d but must be 0 for type_path_kind [0,2]"
-                LOG(M527, type_argument_index);
+                buffer.classContext().log(M527, type_argument_index);
             }
         }
         checkAnnotation();
@@ -42,6 +42,8 @@ public enum Message implements JynxMessage {
     M536(INFO,"BootStrap %d is not used"),
     M537(ERROR,"base tag in early larval cannot be %d"),
     M538("offset %d is not instruction NEW"),
+    M539(WARNING,"access flags %#x are not defined for %s in %s"),
+    M540(WARNING,"result cache not evicted - %s"),
 
     ;
 
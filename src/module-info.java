@@ -1,5 +1,7 @@
 module com.github.david32768.JynxStructure {
-    requires com.github.david32768.JynxFree;
+    requires transitive com.github.david32768.JynxFree;
+    requires jdk.jfr;
+    requires jdk.management;
     exports com.github.david32768.jynxstructure;
     provides com.github.david32768.jynxfree.jynx.MainOptionService 
             with com.github.david32768.jynxstructure.MainStructure;